@@ -0,0 +1,268 @@
+/*
+ * Copyright (c) 2020, Dmitriy Shchekotin
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package ru.silverhammer.apt;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+
+@SupportedAnnotationTypes("*")
+public class BinderProcessor extends AbstractProcessor {
+
+	private static final String BINDER = "ru.silverhammer.accessor.IBinder";
+	private static final String ACCESSOR = "ru.silverhammer.accessor.IFieldAccessor";
+	private static final String ACCESSORS = "ru.silverhammer.accessor.Accessors";
+	private static final String HANDLE = "java.lang.invoke.MethodHandle";
+	private static final String SUFFIX = "_Binder";
+
+	private static final Set<String> META_ANNOTATIONS = new HashSet<>(Arrays.asList(
+			"ru.silverhammer.processor.ProcessorReference",
+			"ru.silverhammer.converter.ConverterReference",
+			"ru.silverhammer.initializer.InitializerReference",
+			"ru.sanatio.validator.ValidatorReference"
+	));
+
+	private static final Set<String> UI_ANNOTATIONS = new HashSet<>(Arrays.asList(
+			"ru.silverhammer.processor.GroupId",
+			"ru.silverhammer.processor.Caption",
+			"ru.silverhammer.processor.Description",
+			"ru.silverhammer.processor.Structure",
+			"ru.silverhammer.processor.Structure.Category"
+	));
+
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+		for (Element e : roundEnv.getRootElements()) {
+			if (e instanceof TypeElement) {
+				processType((TypeElement) e);
+			}
+		}
+		return false;
+	}
+
+	private void processType(TypeElement type) {
+		for (Element e : type.getEnclosedElements()) {
+			if (e instanceof TypeElement) {
+				processType((TypeElement) e);
+			}
+		}
+		if (type.getKind() == ElementKind.CLASS && isAccessible(type)) {
+			List<VariableElement> fields = new ArrayList<>();
+			for (Element e : type.getEnclosedElements()) {
+				if (e.getKind() == ElementKind.FIELD && !e.getModifiers().contains(Modifier.STATIC) && isAnnotated(e)) {
+					fields.add((VariableElement) e);
+				}
+			}
+			if (!fields.isEmpty() || isAnnotated(type)) {
+				writeBinder(type, fields);
+			}
+		}
+	}
+
+	private boolean isAccessible(TypeElement type) {
+		for (Element e = type; e instanceof TypeElement; e = e.getEnclosingElement()) {
+			NestingKind kind = ((TypeElement) e).getNestingKind();
+			if (e.getModifiers().contains(Modifier.PRIVATE) || (kind != NestingKind.TOP_LEVEL && kind != NestingKind.MEMBER)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	// a type outside the binder's package has to be public all the way up to be named in generated code
+	private boolean isVisible(TypeMirror type, PackageElement pkg) {
+		if (type.getKind() == TypeKind.ARRAY) {
+			return isVisible(((ArrayType) type).getComponentType(), pkg);
+		}
+		if (type.getKind() != TypeKind.DECLARED) {
+			return true;
+		}
+		TypeElement element = (TypeElement) ((DeclaredType) type).asElement();
+		boolean samePackage = processingEnv.getElementUtils().getPackageOf(element).equals(pkg);
+		for (Element e = element; e instanceof TypeElement; e = e.getEnclosingElement()) {
+			if (!isAccessible((TypeElement) e) || (!samePackage && !e.getModifiers().contains(Modifier.PUBLIC))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private boolean isAnnotated(Element element) {
+		for (AnnotationMirror am : element.getAnnotationMirrors()) {
+			TypeElement annotationType = (TypeElement) am.getAnnotationType().asElement();
+			if (UI_ANNOTATIONS.contains(annotationType.getQualifiedName().toString())) {
+				return true;
+			}
+			for (AnnotationMirror meta : annotationType.getAnnotationMirrors()) {
+				TypeElement metaType = (TypeElement) meta.getAnnotationType().asElement();
+				if (META_ANNOTATIONS.contains(metaType.getQualifiedName().toString())) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	private void writeBinder(TypeElement type, List<VariableElement> fields) {
+		PackageElement pkg = processingEnv.getElementUtils().getPackageOf(type);
+		String packageName = pkg.isUnnamed() ? "" : pkg.getQualifiedName().toString();
+		String binaryName = processingEnv.getElementUtils().getBinaryName(type).toString();
+		String binderName = (packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1)) + SUFFIX;
+		String typeName = type.getQualifiedName().toString();
+		String qualifiedName = packageName.isEmpty() ? binderName : packageName + "." + binderName;
+		try (PrintWriter out = new PrintWriter(processingEnv.getFiler().createSourceFile(qualifiedName, type).openWriter())) {
+			if (!packageName.isEmpty()) {
+				out.println("package " + packageName + ";");
+				out.println();
+			}
+			out.println("@SuppressWarnings({\"unchecked\", \"rawtypes\"})");
+			out.println("public final class " + binderName + " implements " + BINDER + " {");
+			out.println();
+			StringBuilder names = new StringBuilder();
+			for (VariableElement field : fields) {
+				names.append(names.length() == 0 ? "" : ", ").append('"').append(field.getSimpleName()).append('"');
+			}
+			out.println("\tprivate static final java.util.Collection<String> FIELDS = java.util.Collections.unmodifiableList(java.util.Arrays.<String>asList(" + names + "));");
+			// fields the binder cannot name directly are reached through constant method handles resolved once
+			for (int i = 0; i < fields.size(); i++) {
+				VariableElement field = fields.get(i);
+				if (isSettable(field) && !isDirect(field, pkg)) {
+					out.println("\tprivate static final " + HANDLE + " GETTER_" + i + " = " + ACCESSORS + ".getter(" + typeName + ".class, \"" + field.getSimpleName() + "\");");
+					out.println("\tprivate static final " + HANDLE + " SETTER_" + i + " = " + ACCESSORS + ".setter(" + typeName + ".class, \"" + field.getSimpleName() + "\");");
+				}
+			}
+			out.println();
+			out.println("\t@Override");
+			out.println("\tpublic java.util.Collection<String> getFields() {");
+			out.println("\t\treturn FIELDS;");
+			out.println("\t}");
+			out.println();
+			out.println("\t@Override");
+			out.println("\tpublic " + ACCESSOR + " getAccessor(String field) {");
+			out.println("\t\tswitch (field) {");
+			for (int i = 0; i < fields.size(); i++) {
+				VariableElement field = fields.get(i);
+				if (isSettable(field)) {
+					out.println("\t\tcase \"" + field.getSimpleName() + "\":");
+					out.println("\t\t\treturn new " + ACCESSOR + "() {");
+					if (isDirect(field, pkg)) {
+						writeDirectAccess(out, typeName, field);
+					} else {
+						writeHandleAccess(out, i);
+					}
+					out.println("\t\t\t};");
+				}
+			}
+			out.println("\t\tdefault:");
+			out.println("\t\t\treturn null;");
+			out.println("\t\t}");
+			out.println("\t}");
+			out.println("}");
+		} catch (IOException e) {
+			processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Unable to generate " + qualifiedName + ": " + e.getMessage(), type);
+		}
+	}
+
+	private boolean isSettable(VariableElement field) {
+		return !field.getModifiers().contains(Modifier.FINAL);
+	}
+
+	private boolean isDirect(VariableElement field, PackageElement pkg) {
+		return !field.getModifiers().contains(Modifier.PRIVATE) && isVisible(processingEnv.getTypeUtils().erasure(field.asType()), pkg);
+	}
+
+	private void writeDirectAccess(PrintWriter out, String typeName, VariableElement field) {
+		String name = field.getSimpleName().toString();
+		out.println("\t\t\t\t@Override");
+		out.println("\t\t\t\tpublic Object getValue(Object data) {");
+		out.println("\t\t\t\t\treturn ((" + typeName + ") data)." + name + ";");
+		out.println("\t\t\t\t}");
+		out.println();
+		out.println("\t\t\t\t@Override");
+		out.println("\t\t\t\tpublic void setValue(Object data, Object value) {");
+		out.println("\t\t\t\t\t((" + typeName + ") data)." + name + " = (" + getCastType(field.asType()) + ") value;");
+		out.println("\t\t\t\t}");
+	}
+
+	private void writeHandleAccess(PrintWriter out, int index) {
+		out.println("\t\t\t\t@Override");
+		out.println("\t\t\t\tpublic Object getValue(Object data) {");
+		out.println("\t\t\t\t\ttry {");
+		out.println("\t\t\t\t\t\treturn (Object) GETTER_" + index + ".invokeExact(data);");
+		writeRethrow(out);
+		out.println("\t\t\t\t}");
+		out.println();
+		out.println("\t\t\t\t@Override");
+		out.println("\t\t\t\tpublic void setValue(Object data, Object value) {");
+		out.println("\t\t\t\t\ttry {");
+		out.println("\t\t\t\t\t\tSETTER_" + index + ".invokeExact(data, value);");
+		writeRethrow(out);
+		out.println("\t\t\t\t}");
+	}
+
+	private void writeRethrow(PrintWriter out) {
+		out.println("\t\t\t\t\t} catch (RuntimeException | Error e) {");
+		out.println("\t\t\t\t\t\tthrow e;");
+		out.println("\t\t\t\t\t} catch (Throwable e) {");
+		out.println("\t\t\t\t\t\tthrow new IllegalStateException(e);");
+		out.println("\t\t\t\t\t}");
+	}
+
+	private String getCastType(TypeMirror type) {
+		if (type.getKind().isPrimitive()) {
+			return processingEnv.getTypeUtils().boxedClass((PrimitiveType) type).getQualifiedName().toString();
+		}
+		return processingEnv.getTypeUtils().erasure(type).toString();
+	}
+}
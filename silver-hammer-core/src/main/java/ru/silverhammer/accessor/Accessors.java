@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2020, Dmitriy Shchekotin
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package ru.silverhammer.accessor;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import ru.reflexio.IFieldReflection;
+import ru.reflexio.IInstanceFieldReflection;
+import ru.reflexio.TypeReflection;
+
+public final class Accessors {
+
+	public static final String BINDER_SUFFIX = "_Binder";
+
+	private static final IBinder NO_BINDER = field -> null;
+	private static final Map<Class<?>, IBinder> binders = new ConcurrentHashMap<>();
+
+	private Accessors() {}
+
+	public static IFieldAccessor create(Class<?> owner, IInstanceFieldReflection field) {
+		Field f = findField(owner, field);
+		return f == null ? new ReflectionAccessor(field) : create(f, field);
+	}
+
+	public static IFieldAccessor create(Field f, IInstanceFieldReflection field) {
+		IFieldAccessor result = getBinder(f.getDeclaringClass()).getAccessor(f.getName());
+		if (result != null) {
+			return result;
+		}
+		try {
+			return new MethodHandleAccessor(f);
+		} catch (IllegalAccessException | RuntimeException e) {
+			return new ReflectionAccessor(field);
+		}
+	}
+
+	public static IBinder getBinder(Class<?> type) {
+		return binders.computeIfAbsent(type, Accessors::loadBinder);
+	}
+
+	public static void clear() {
+		binders.clear();
+	}
+
+	// generated binders keep these handles in constants to reach fields they cannot access directly
+	public static MethodHandle getter(Class<?> type, String field) {
+		try {
+			return MethodHandleAccessor.getter(type.getDeclaredField(field));
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	public static MethodHandle setter(Class<?> type, String field) {
+		try {
+			return MethodHandleAccessor.setter(type.getDeclaredField(field));
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static IBinder loadBinder(Class<?> type) {
+		try {
+			Class<?> cl = Class.forName(type.getName() + BINDER_SUFFIX, true, type.getClassLoader());
+			if (IBinder.class.isAssignableFrom(cl)) {
+				return (IBinder) cl.getDeclaredConstructor().newInstance();
+			}
+		} catch (ReflectiveOperationException | LinkageError | SecurityException ignore) {}
+		return NO_BINDER;
+	}
+
+	// a shadowed name belongs to the class whose own view of the name is the given field, null if none matches
+	public static Field findField(Class<?> owner, IFieldReflection field) {
+		List<Field> candidates = new ArrayList<>();
+		for (Class<?> cl = owner; cl != null; cl = cl.getSuperclass()) {
+			try {
+				Field result = cl.getDeclaredField(field.getName());
+				if (!Modifier.isStatic(result.getModifiers()) && result.getType() == field.getType()) {
+					candidates.add(result);
+				}
+			} catch (NoSuchFieldException | SecurityException ignore) {}
+		}
+		if (candidates.size() > 1) {
+			for (Field candidate : candidates) {
+				if (field.equals(new TypeReflection<>(candidate.getDeclaringClass()).findInstanceField(field.getName()))) {
+					return candidate;
+				}
+			}
+			return null;
+		}
+		return candidates.isEmpty() ? null : candidates.get(0);
+	}
+}
@@ -0,0 +1,526 @@
+/*
+ * Copyright (c) 2020, Dmitriy Shchekotin
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package ru.silverhammer.control;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.RandomAccess;
+
+// rows stored column by column, numeric columns are kept in primitive arrays and rows are materialized on access
+public class ColumnarRows extends AbstractList<Object[]> implements RandomAccess {
+
+	private static final int DEFAULT_CAPACITY = 16;
+
+	private abstract static class Column {
+
+		final Class<?> type;
+
+		Column(Class<?> type) {
+			this.type = type;
+		}
+
+		abstract Object get(int index);
+
+		// false if the value does not fit the column type
+		abstract boolean set(int index, Object value);
+
+		abstract void move(int from, int to, int count);
+
+		abstract void clear(int from, int to);
+
+		abstract Column copy(int capacity);
+	}
+
+	private abstract static class PrimitiveColumn extends Column {
+
+		final long[] nulls;
+
+		PrimitiveColumn(Class<?> type, long[] nulls) {
+			super(type);
+			this.nulls = nulls;
+		}
+
+		boolean isNull(int index) {
+			return (nulls[index >>> 6] & 1L << index) != 0;
+		}
+
+		void setNull(int index, boolean value) {
+			if (value) {
+				nulls[index >>> 6] |= 1L << index;
+			} else {
+				nulls[index >>> 6] &= ~(1L << index);
+			}
+		}
+
+		void moveNulls(int from, int to, int count) {
+			if (to < from) {
+				for (int i = 0; i < count; i++) {
+					setNull(to + i, isNull(from + i));
+				}
+			} else {
+				for (int i = count - 1; i >= 0; i--) {
+					setNull(to + i, isNull(from + i));
+				}
+			}
+		}
+
+		@Override
+		Object get(int index) {
+			return isNull(index) ? null : load(index);
+		}
+
+		@Override
+		boolean set(int index, Object value) {
+			if (value == null) {
+				setNull(index, true);
+				return true;
+			} else if (value.getClass() == type) {
+				setNull(index, false);
+				store(index, value);
+				return true;
+			}
+			return false;
+		}
+
+		@Override
+		void clear(int from, int to) {
+		}
+
+		int compare(int a, int b) {
+			boolean nullA = isNull(a);
+			boolean nullB = isNull(b);
+			if (nullA || nullB) {
+				return nullA == nullB ? 0 : nullA ? -1 : 1;
+			}
+			return compareValues(a, b);
+		}
+
+		abstract Object load(int index);
+
+		abstract void store(int index, Object value);
+
+		abstract int compareValues(int a, int b);
+	}
+
+	// also holds short, byte, char and boolean values
+	private static final class IntColumn extends PrimitiveColumn {
+
+		private final int[] values;
+
+		IntColumn(Class<?> type, int[] values, long[] nulls) {
+			super(type, nulls);
+			this.values = values;
+		}
+
+		@Override
+		Object load(int index) {
+			int value = values[index];
+			if (type == Short.class) {
+				return (short) value;
+			} else if (type == Byte.class) {
+				return (byte) value;
+			} else if (type == Character.class) {
+				return (char) value;
+			} else if (type == Boolean.class) {
+				return value != 0;
+			}
+			return value;
+		}
+
+		@Override
+		void store(int index, Object value) {
+			if (value instanceof Number) {
+				values[index] = ((Number) value).intValue();
+			} else if (value instanceof Character) {
+				values[index] = (Character) value;
+			} else {
+				values[index] = (Boolean) value ? 1 : 0;
+			}
+		}
+
+		@Override
+		int compareValues(int a, int b) {
+			return Integer.compare(values[a], values[b]);
+		}
+
+		@Override
+		void move(int from, int to, int count) {
+			System.arraycopy(values, from, values, to, count);
+			moveNulls(from, to, count);
+		}
+
+		@Override
+		Column copy(int capacity) {
+			return new IntColumn(type, Arrays.copyOf(values, capacity), bits(nulls, capacity));
+		}
+	}
+
+	private static final class LongColumn extends PrimitiveColumn {
+
+		private final long[] values;
+
+		LongColumn(Class<?> type, long[] values, long[] nulls) {
+			super(type, nulls);
+			this.values = values;
+		}
+
+		@Override
+		Object load(int index) {
+			return values[index];
+		}
+
+		@Override
+		void store(int index, Object value) {
+			values[index] = (Long) value;
+		}
+
+		@Override
+		int compareValues(int a, int b) {
+			return Long.compare(values[a], values[b]);
+		}
+
+		@Override
+		void move(int from, int to, int count) {
+			System.arraycopy(values, from, values, to, count);
+			moveNulls(from, to, count);
+		}
+
+		@Override
+		Column copy(int capacity) {
+			return new LongColumn(type, Arrays.copyOf(values, capacity), bits(nulls, capacity));
+		}
+	}
+
+	// also holds float values
+	private static final class DoubleColumn extends PrimitiveColumn {
+
+		private final double[] values;
+
+		DoubleColumn(Class<?> type, double[] values, long[] nulls) {
+			super(type, nulls);
+			this.values = values;
+		}
+
+		@Override
+		Object load(int index) {
+			if (type == Float.class) {
+				return (float) values[index];
+			}
+			return values[index];
+		}
+
+		@Override
+		void store(int index, Object value) {
+			values[index] = ((Number) value).doubleValue();
+		}
+
+		@Override
+		int compareValues(int a, int b) {
+			return Double.compare(values[a], values[b]);
+		}
+
+		@Override
+		void move(int from, int to, int count) {
+			System.arraycopy(values, from, values, to, count);
+			moveNulls(from, to, count);
+		}
+
+		@Override
+		Column copy(int capacity) {
+			return new DoubleColumn(type, Arrays.copyOf(values, capacity), bits(nulls, capacity));
+		}
+	}
+
+	private static final class ObjectColumn extends Column {
+
+		private final Object[] values;
+
+		ObjectColumn(Object[] values) {
+			super(Object.class);
+			this.values = values;
+		}
+
+		@Override
+		Object get(int index) {
+			return values[index];
+		}
+
+		@Override
+		boolean set(int index, Object value) {
+			values[index] = value;
+			return true;
+		}
+
+		@Override
+		void move(int from, int to, int count) {
+			System.arraycopy(values, from, values, to, count);
+		}
+
+		@Override
+		void clear(int from, int to) {
+			Arrays.fill(values, from, to, null);
+		}
+
+		@Override
+		Column copy(int capacity) {
+			return new ObjectColumn(Arrays.copyOf(values, capacity));
+		}
+	}
+
+	private Column[] columns;
+	private int size;
+	private int capacity;
+	private boolean shared;
+
+	// columns of null type take the type of their first non-null value
+	public ColumnarRows(Class<?>... types) {
+		this(types, DEFAULT_CAPACITY);
+	}
+
+	public ColumnarRows(Class<?>[] types, int capacity) {
+		this.capacity = Math.max(capacity, 1);
+		this.columns = new Column[types.length];
+		for (int i = 0; i < types.length; i++) {
+			columns[i] = types[i] == null ? null : createColumn(box(types[i]), this.capacity);
+		}
+	}
+
+	public ColumnarRows(Class<?>[] types, Collection<? extends Object[]> rows) {
+		this(types, rows.size());
+		addAll(rows);
+	}
+
+	private ColumnarRows(Column[] columns, int size, int capacity) {
+		this.columns = columns;
+		this.size = size;
+		this.capacity = capacity;
+		this.shared = true;
+	}
+
+	// the copy shares storage with this list until either of them is modified
+	public ColumnarRows copy() {
+		shared = true;
+		return new ColumnarRows(columns.clone(), size, capacity);
+	}
+
+	public int getColumnCount() {
+		return columns.length;
+	}
+
+	// boxed type of the column values, null until the type is inferred
+	public Class<?> getColumnType(int column) {
+		return column < columns.length && columns[column] != null ? columns[column].type : null;
+	}
+
+	public boolean isPrimitive(int column) {
+		return column < columns.length && columns[column] instanceof PrimitiveColumn;
+	}
+
+	public Object getValue(int row, int column) {
+		checkIndex(row);
+		return column < columns.length && columns[column] != null ? columns[column].get(row) : null;
+	}
+
+	// compares cells of a primitive column without boxing, nulls first
+	public int compare(int a, int b, int column) {
+		checkIndex(a);
+		checkIndex(b);
+		return ((PrimitiveColumn) columns[column]).compare(a, b);
+	}
+
+	@Override
+	public Object[] get(int index) {
+		checkIndex(index);
+		Object[] result = new Object[columns.length];
+		for (int i = 0; i < columns.length; i++) {
+			result[i] = columns[i] == null ? null : columns[i].get(index);
+		}
+		return result;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public Object[] set(int index, Object[] row) {
+		Object[] result = get(index);
+		prepare(row, size);
+		put(index, row);
+		return result;
+	}
+
+	@Override
+	public void add(int index, Object[] row) {
+		if (index < 0 || index > size) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		}
+		prepare(row, size + 1);
+		for (Column column : columns) {
+			if (column != null) {
+				column.move(index, index + 1, size - index);
+			}
+		}
+		size++;
+		put(index, row);
+		modCount++;
+	}
+
+	@Override
+	public boolean addAll(Collection<? extends Object[]> rows) {
+		if (size + rows.size() > capacity) {
+			grow(size + rows.size());
+		}
+		return super.addAll(rows);
+	}
+
+	@Override
+	public Object[] remove(int index) {
+		Object[] result = get(index);
+		removeRange(index, index + 1);
+		return result;
+	}
+
+	@Override
+	protected void removeRange(int from, int to) {
+		unshare();
+		for (Column column : columns) {
+			if (column != null) {
+				column.move(to, from, size - to);
+				column.clear(size - to + from, size);
+			}
+		}
+		size -= to - from;
+		modCount++;
+	}
+
+	@Override
+	public void clear() {
+		capacity = DEFAULT_CAPACITY;
+		for (int i = 0; i < columns.length; i++) {
+			columns[i] = columns[i] == null ? null : createColumn(columns[i].type, capacity);
+		}
+		size = 0;
+		shared = false;
+		modCount++;
+	}
+
+	private void checkIndex(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		}
+	}
+
+	private void prepare(Object[] row, int required) {
+		if (required > capacity) {
+			grow(required);
+		} else {
+			unshare();
+		}
+		if (row != null && row.length > columns.length) {
+			columns = Arrays.copyOf(columns, row.length);
+		}
+	}
+
+	private void grow(int required) {
+		capacity = Math.max(required, capacity + (capacity >> 1));
+		for (int i = 0; i < columns.length; i++) {
+			columns[i] = columns[i] == null ? null : columns[i].copy(capacity);
+		}
+		shared = false;
+	}
+
+	private void unshare() {
+		if (shared) {
+			for (int i = 0; i < columns.length; i++) {
+				columns[i] = columns[i] == null ? null : columns[i].copy(capacity);
+			}
+			shared = false;
+		}
+	}
+
+	private void put(int index, Object[] row) {
+		for (int i = 0; i < columns.length; i++) {
+			Object value = row != null && i < row.length ? row[i] : null;
+			Column column = columns[i];
+			if (column == null && value != null) {
+				column = createColumn(value.getClass(), capacity);
+				for (int j = 0; j < size; j++) {
+					column.set(j, null);
+				}
+			}
+			if (column != null && !column.set(index, value)) {
+				// the value does not fit the primitive column, keep the column as objects from now on
+				Object[] values = new Object[capacity];
+				for (int j = 0; j < size; j++) {
+					values[j] = column.get(j);
+				}
+				column = new ObjectColumn(values);
+				column.set(index, value);
+			}
+			columns[i] = column;
+		}
+	}
+
+	private static Column createColumn(Class<?> type, int capacity) {
+		if (type == Integer.class || type == Short.class || type == Byte.class || type == Character.class || type == Boolean.class) {
+			return new IntColumn(type, new int[capacity], bits(null, capacity));
+		} else if (type == Long.class) {
+			return new LongColumn(type, new long[capacity], bits(null, capacity));
+		} else if (type == Double.class || type == Float.class) {
+			return new DoubleColumn(type, new double[capacity], bits(null, capacity));
+		}
+		return new ObjectColumn(new Object[capacity]);
+	}
+
+	private static long[] bits(long[] nulls, int capacity) {
+		int length = (capacity + 63) >>> 6;
+		return nulls == null ? new long[length] : Arrays.copyOf(nulls, length);
+	}
+
+	private static Class<?> box(Class<?> type) {
+		if (type == int.class) {
+			return Integer.class;
+		} else if (type == long.class) {
+			return Long.class;
+		} else if (type == double.class) {
+			return Double.class;
+		} else if (type == float.class) {
+			return Float.class;
+		} else if (type == short.class) {
+			return Short.class;
+		} else if (type == byte.class) {
+			return Byte.class;
+		} else if (type == char.class) {
+			return Character.class;
+		} else if (type == boolean.class) {
+			return Boolean.class;
+		}
+		return type;
+	}
+}
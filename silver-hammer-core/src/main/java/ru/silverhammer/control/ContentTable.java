@@ -46,4 +46,12 @@ public @interface ContentTable {
 
     Class<?> annotationCaptions() default Void.class;
 
+    boolean sortable() default false;
+
+    boolean filterable() default false;
+
+    // rows are stored column by column, with annotationCaptions every bean is projected when the value is set
+    // instead of on display and rebuilt when the value is read
+    boolean columnar() default false;
+
 }
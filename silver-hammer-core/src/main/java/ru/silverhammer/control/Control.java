@@ -35,6 +35,8 @@ public abstract class Control<Value, A extends Annotation> implements IControl<V
     private boolean enabled;
     private final List<IValueListener> listeners = new ArrayList<>();
     private String validationMessage;
+    private boolean validating;
+    private boolean loading;
 
     @Override
     public Value getValue() {
@@ -84,6 +86,26 @@ public abstract class Control<Value, A extends Annotation> implements IControl<V
         return validationMessage;
     }
 
+    @Override
+    public boolean isValidating() {
+        return validating;
+    }
+
+    @Override
+    public void setValidating(boolean validating) {
+        this.validating = validating;
+    }
+
+    @Override
+    public boolean isLoading() {
+        return loading;
+    }
+
+    @Override
+    public void setLoading(boolean loading) {
+        this.loading = loading;
+    }
+
     protected void fireValueChanged() {
         for (IValueListener listener : listeners) {
             listener.changed(this);
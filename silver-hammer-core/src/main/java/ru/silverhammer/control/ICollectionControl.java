@@ -26,10 +26,64 @@
 package ru.silverhammer.control;
 
 import java.lang.annotation.Annotation;
+import java.util.Collection;
 import java.util.List;
 
 public interface ICollectionControl<Value, A extends Annotation, Item> extends IControl<Value, A> {
 
 	List<Item> getCollection();
 
+	default void addAll(Collection<? extends Item> items) {
+		batch(() -> {
+			List<Item> collection = getCollection();
+			for (Item item : items) {
+				collection.add(item);
+			}
+		});
+	}
+
+	default void removeRange(int from, int to) {
+		batch(() -> {
+			List<Item> collection = getCollection();
+			for (int i = to - 1; i >= from; i--) {
+				collection.remove(i);
+			}
+		});
+	}
+
+	default void replaceAll(Collection<? extends Item> items) {
+		batch(() -> {
+			getCollection().clear();
+			addAll(items);
+		});
+	}
+
+	// value listeners are notified once after all changes made inside the batch
+	default void batch(Runnable changes) {
+		changes.run();
+	}
+
+	// replaces the items, controls able to page through the source load only visible items
+	default void setItemSource(IItemSource<Item> source) {
+		batch(() -> {
+			getCollection().clear();
+			for (int from = 0; from < source.size(); from += IItemSource.PAGE_SIZE) {
+				addAll(source.getRange(from, Math.min(from + IItemSource.PAGE_SIZE, source.size())));
+			}
+		});
+	}
+
+	// appends the items, an empty control takes the source itself
+	default void addItemSource(IItemSource<Item> source) {
+		if (getCollection().size() == 0) {
+			setItemSource(source);
+		} else {
+			batch(() -> {
+				for (int from = 0; from < source.size(); from += IItemSource.PAGE_SIZE) {
+					addAll(source.getRange(from, Math.min(from + IItemSource.PAGE_SIZE, source.size())));
+				}
+			});
+		}
+	}
+
 }
@@ -49,4 +49,12 @@ public interface IControl<Value, A extends Annotation> {
 
 	String getValidationMessage();
 
+	boolean isValidating();
+
+	void setValidating(boolean validating);
+
+	boolean isLoading();
+
+	void setLoading(boolean loading);
+
 }
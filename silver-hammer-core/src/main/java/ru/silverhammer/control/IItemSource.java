@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2020, Dmitriy Shchekotin
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package ru.silverhammer.control;
+
+import java.util.List;
+
+public interface IItemSource<Item> {
+
+	int PAGE_SIZE = 256;
+
+	int size();
+
+	// items from inclusive to exclusive index, sorted tables also read them on a background thread
+	List<Item> getRange(int from, int to);
+
+	default int indexOf(Object item) {
+		int size = size();
+		for (int from = 0; from < size; from += PAGE_SIZE) {
+			int i = getRange(from, Math.min(from + PAGE_SIZE, size)).indexOf(item);
+			if (i != -1) {
+				return from + i;
+			}
+		}
+		return -1;
+	}
+
+	// index of the first item at or after from whose string contains the search text
+	default int find(String search, int from) {
+		int size = size();
+		for (int start = Math.max(from, 0); start < size; start += PAGE_SIZE) {
+			List<Item> items = getRange(start, Math.min(start + PAGE_SIZE, size));
+			for (int i = 0; i < items.size(); i++) {
+				Item item = items.get(i);
+				if (item != null && item.toString().contains(search)) {
+					return start + i;
+				}
+			}
+		}
+		return -1;
+	}
+
+}
@@ -25,10 +25,17 @@
  */
 package ru.silverhammer.control;
 
+import java.util.Collection;
+
 public interface ITree<Item> {
 
     void add(Item parent, Item item);
 
+    void addAll(Item parent, Collection<? extends Item> items);
+
+    // expandable item without children shows a placeholder until children are added
+    void setExpandable(Item item, boolean expandable);
+
     void remove(Item parent, int i);
 
     Item get(Item parent, int i);
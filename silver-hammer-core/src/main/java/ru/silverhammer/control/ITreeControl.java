@@ -31,4 +31,8 @@ public interface ITreeControl<Value, A extends Annotation, Item> extends IContro
 
 	ITree<Item> getTree();
 
+	void addExpansionListener(ITreeExpansionListener<Item> listener);
+
+	void removeExpansionListener(ITreeExpansionListener<Item> listener);
+
 }
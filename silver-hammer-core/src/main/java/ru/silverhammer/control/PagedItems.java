@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2020, Dmitriy Shchekotin
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package ru.silverhammer.control;
+
+import java.util.AbstractList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+// read-only list loading pages from the source on demand, least recently used pages are dropped
+public class PagedItems<Item> extends AbstractList<Item> implements RandomAccess {
+
+	public static final int DEFAULT_MAX_PAGES = 64;
+
+	private final IItemSource<Item> source;
+	private final int pageSize;
+	private final Map<Integer, List<Item>> pages;
+
+	private int size;
+
+	public PagedItems(IItemSource<Item> source) {
+		this(source, IItemSource.PAGE_SIZE, DEFAULT_MAX_PAGES);
+	}
+
+	public PagedItems(IItemSource<Item> source, int pageSize, int maxPages) {
+		this.source = source;
+		this.pageSize = pageSize;
+		this.pages = new LinkedHashMap<Integer, List<Item>>(16, 0.75f, true) {
+			private static final long serialVersionUID = -2101581417440712375L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Integer, List<Item>> eldest) {
+				return size() > maxPages;
+			}
+		};
+		this.size = source.size();
+	}
+
+	public IItemSource<Item> getSource() {
+		return source;
+	}
+
+	@Override
+	public Item get(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		}
+		int page = index / pageSize;
+		List<Item> items = pages.get(page);
+		if (items == null) {
+			int from = page * pageSize;
+			items = source.getRange(from, Math.min(from + pageSize, size));
+			pages.put(page, items);
+		}
+		return items.get(index - page * pageSize);
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public int indexOf(Object o) {
+		return source.indexOf(o);
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		return indexOf(o) != -1;
+	}
+
+	public int find(String search, int from) {
+		return source.find(search, from);
+	}
+
+	// drops loaded pages after the source has changed
+	public void refresh() {
+		pages.clear();
+		size = source.size();
+		modCount++;
+	}
+}
@@ -26,20 +26,168 @@
 package ru.silverhammer.converter;
 
 import java.lang.reflect.Array;
-import java.util.ArrayList;
+import java.util.AbstractList;
 import java.util.Collection;
+import java.util.RandomAccess;
 
+import ru.silverhammer.processor.Stateless;
+
+@Stateless
 public class ArrayToCollectionConverter implements IConverter<Object, Collection<?>, ArrayToCollection> {
 
+	private static final class ObjectArrayView extends AbstractList<Object> implements RandomAccess {
+
+		private final Object[] array;
+
+		private ObjectArrayView(Object[] array) {
+			this.array = array;
+		}
+
+		@Override
+		public Object get(int index) {
+			return array[index];
+		}
+
+		@Override
+		public int size() {
+			return array.length;
+		}
+
+		@Override
+		public Object[] toArray() {
+			return array.clone();
+		}
+	}
+
+	private static final class IntArrayView extends AbstractList<Integer> implements RandomAccess {
+
+		private final int[] array;
+
+		private IntArrayView(int[] array) {
+			this.array = array;
+		}
+
+		@Override
+		public Integer get(int index) {
+			return array[index];
+		}
+
+		@Override
+		public int size() {
+			return array.length;
+		}
+
+		@Override
+		public int indexOf(Object o) {
+			if (o instanceof Integer) {
+				int value = (Integer) o;
+				for (int i = 0; i < array.length; i++) {
+					if (array[i] == value) {
+						return i;
+					}
+				}
+			}
+			return -1;
+		}
+	}
+
+	private static final class LongArrayView extends AbstractList<Long> implements RandomAccess {
+
+		private final long[] array;
+
+		private LongArrayView(long[] array) {
+			this.array = array;
+		}
+
+		@Override
+		public Long get(int index) {
+			return array[index];
+		}
+
+		@Override
+		public int size() {
+			return array.length;
+		}
+
+		@Override
+		public int indexOf(Object o) {
+			if (o instanceof Long) {
+				long value = (Long) o;
+				for (int i = 0; i < array.length; i++) {
+					if (array[i] == value) {
+						return i;
+					}
+				}
+			}
+			return -1;
+		}
+	}
+
+	private static final class DoubleArrayView extends AbstractList<Double> implements RandomAccess {
+
+		private final double[] array;
+
+		private DoubleArrayView(double[] array) {
+			this.array = array;
+		}
+
+		@Override
+		public Double get(int index) {
+			return array[index];
+		}
+
+		@Override
+		public int size() {
+			return array.length;
+		}
+
+		@Override
+		public int indexOf(Object o) {
+			if (o instanceof Double) {
+				long value = Double.doubleToLongBits((Double) o);
+				for (int i = 0; i < array.length; i++) {
+					if (Double.doubleToLongBits(array[i]) == value) {
+						return i;
+					}
+				}
+			}
+			return -1;
+		}
+	}
+
+	private static final class GenericArrayView extends AbstractList<Object> implements RandomAccess {
+
+		private final Object array;
+		private final int length;
+
+		private GenericArrayView(Object array) {
+			this.array = array;
+			this.length = Array.getLength(array);
+		}
+
+		@Override
+		public Object get(int index) {
+			return Array.get(array, index);
+		}
+
+		@Override
+		public int size() {
+			return length;
+		}
+	}
+
 	@Override
 	public Collection<?> convertForward(Object source, ArrayToCollection annotation) {
-		if (source != null && source.getClass().isArray()) {
-			Collection<Object> result = new ArrayList<>();
-			int length = Array.getLength(source);
-			for (int i = 0; i < length; i++) {
-		        result.add(Array.get(source, i));
-			}
-			return result;
+		if (source instanceof Object[]) {
+			return new ObjectArrayView((Object[]) source);
+		} else if (source instanceof int[]) {
+			return new IntArrayView((int[]) source);
+		} else if (source instanceof long[]) {
+			return new LongArrayView((long[]) source);
+		} else if (source instanceof double[]) {
+			return new DoubleArrayView((double[]) source);
+		} else if (source != null && source.getClass().isArray()) {
+			return new GenericArrayView(source);
 		}
 		return null;
 	}
@@ -47,7 +195,49 @@ public class ArrayToCollectionConverter implements IConverter<Object, Collection
 	@Override
 	public Object convertBackward(Collection<?> destination, ArrayToCollection annotation) {
 		if (destination != null) {
-			Object array = Array.newInstance(annotation.value(), destination.size());
+			Class<?> type = annotation.value();
+			int size = destination.size();
+			// elements other than the exact wrapper go through Array.set, which widens and rejects null or narrowing
+			if (!type.isPrimitive()) {
+				return destination.toArray((Object[]) Array.newInstance(type, size));
+			} else if (type == int.class) {
+				int[] result = new int[size];
+				int i = 0;
+				for (Object o : destination) {
+					if (o instanceof Integer) {
+						result[i] = (Integer) o;
+					} else {
+						Array.set(result, i, o);
+					}
+					i++;
+				}
+				return result;
+			} else if (type == long.class) {
+				long[] result = new long[size];
+				int i = 0;
+				for (Object o : destination) {
+					if (o instanceof Long) {
+						result[i] = (Long) o;
+					} else {
+						Array.set(result, i, o);
+					}
+					i++;
+				}
+				return result;
+			} else if (type == double.class) {
+				double[] result = new double[size];
+				int i = 0;
+				for (Object o : destination) {
+					if (o instanceof Double) {
+						result[i] = (Double) o;
+					} else {
+						Array.set(result, i, o);
+					}
+					i++;
+				}
+				return result;
+			}
+			Object array = Array.newInstance(type, size);
 			int i = 0;
 		    for (Object o : destination) {
 		    	Array.set(array, i++, o);
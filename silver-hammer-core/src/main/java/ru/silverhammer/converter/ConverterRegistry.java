@@ -0,0 +1,242 @@
+/*
+ * Copyright (c) 2020, Dmitriy Shchekotin
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package ru.silverhammer.converter;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Proxy;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+public final class ConverterRegistry {
+
+	public static final class Edge {
+
+		private final Class<? extends IConverter<?, ?, ?>> converterClass;
+		private final Annotation annotation;
+		private final Class<?> source;
+		private final Class<?> destination;
+
+		private Edge(Class<? extends IConverter<?, ?, ?>> converterClass, Annotation annotation, Class<?> source, Class<?> destination) {
+			this.converterClass = converterClass;
+			this.annotation = annotation;
+			this.source = source;
+			this.destination = destination;
+		}
+
+		public Class<? extends IConverter<?, ?, ?>> getConverterClass() {
+			return converterClass;
+		}
+
+		public Annotation getAnnotation() {
+			return annotation;
+		}
+
+		public Class<?> getSource() {
+			return source;
+		}
+
+		public Class<?> getDestination() {
+			return destination;
+		}
+	}
+
+	private static final List<Edge> NO_PATH = Collections.unmodifiableList(new ArrayList<>());
+
+	private final Map<Class<?>, List<Edge>> edges = new ConcurrentHashMap<>();
+	private final Map<Class<?>, Map<Class<?>, List<Edge>>> paths = new ConcurrentHashMap<>();
+
+	public ConverterRegistry() {
+		register(FileToStringConverter.class);
+		register(MapToCollectionConverter.class);
+	}
+
+	@SuppressWarnings("unchecked")
+	public boolean register(Class<? extends IConverter<?, ?, ?>> converterClass) {
+		Class<? extends Annotation> annotationClass = (Class<? extends Annotation>) resolveTypeArgument(converterClass, IConverter.class, 2);
+		Annotation annotation = synthesize(annotationClass);
+		if (annotation != null) {
+			register(converterClass, annotation);
+			return true;
+		}
+		return false;
+	}
+
+	public void register(Class<? extends IConverter<?, ?, ?>> converterClass, Annotation annotation) {
+		Class<?> source = wrap(resolveTypeArgument(converterClass, IConverter.class, 0));
+		Class<?> destination = wrap(resolveTypeArgument(converterClass, IConverter.class, 1));
+		if (source != destination) {
+			edges.computeIfAbsent(source, k -> new ArrayList<>()).add(new Edge(converterClass, annotation, source, destination));
+			paths.clear();
+		}
+	}
+
+	// returns converters to apply in order to turn the field value into the control value, null if there is no path
+	public List<Edge> findPath(Class<?> fieldType, Class<?> valueType) {
+		Class<?> from = wrap(fieldType);
+		Class<?> to = wrap(valueType);
+		Map<Class<?>, List<Edge>> byTarget = paths.computeIfAbsent(from, k -> new ConcurrentHashMap<>());
+		List<Edge> result = byTarget.get(to);
+		if (result == null) {
+			result = search(from, to);
+			byTarget.put(to, result);
+		}
+		return result == NO_PATH ? null : result;
+	}
+
+	private List<Edge> search(Class<?> from, Class<?> to) {
+		if (to.isAssignableFrom(from)) {
+			return Collections.emptyList();
+		}
+		Map<Class<?>, Edge> visited = new HashMap<>();
+		Deque<Class<?>> queue = new ArrayDeque<>();
+		visited.put(from, null);
+		queue.add(from);
+		while (!queue.isEmpty()) {
+			Class<?> type = queue.poll();
+			for (Edge edge : edges.getOrDefault(type, Collections.emptyList())) {
+				Class<?> next = edge.getDestination();
+				if (!visited.containsKey(next)) {
+					visited.put(next, edge);
+					if (next == to) {
+						List<Edge> result = new ArrayList<>();
+						for (Edge e = edge; e != null; e = visited.get(e.getSource())) {
+							result.add(0, e);
+						}
+						return Collections.unmodifiableList(result);
+					}
+					queue.add(next);
+				}
+			}
+		}
+		return NO_PATH;
+	}
+
+	public static Class<?> resolveTypeArgument(Class<?> type, Class<?> generic, int index) {
+		Type result = resolve(type, generic, index, new HashMap<>());
+		if (result instanceof Class) {
+			return (Class<?>) result;
+		} else if (result instanceof ParameterizedType) {
+			return (Class<?>) ((ParameterizedType) result).getRawType();
+		}
+		return Object.class;
+	}
+
+	private static Type resolve(Type type, Class<?> generic, int index, Map<TypeVariable<?>, Type> bindings) {
+		Class<?> raw;
+		if (type instanceof ParameterizedType) {
+			ParameterizedType pt = (ParameterizedType) type;
+			raw = (Class<?>) pt.getRawType();
+			TypeVariable<?>[] variables = raw.getTypeParameters();
+			Type[] arguments = pt.getActualTypeArguments();
+			for (int i = 0; i < variables.length; i++) {
+				Type argument = arguments[i];
+				bindings.put(variables[i], argument instanceof TypeVariable ? bindings.getOrDefault(argument, argument) : argument);
+			}
+			if (raw == generic) {
+				return bindings.get(variables[index]);
+			}
+		} else if (type instanceof Class) {
+			raw = (Class<?>) type;
+		} else {
+			return null;
+		}
+		List<Type> supertypes = new ArrayList<>();
+		if (raw.getGenericSuperclass() != null) {
+			supertypes.add(raw.getGenericSuperclass());
+		}
+		Collections.addAll(supertypes, raw.getGenericInterfaces());
+		for (Type supertype : supertypes) {
+			Type result = resolve(supertype, generic, index, bindings);
+			if (result != null) {
+				return result;
+			}
+		}
+		return null;
+	}
+
+	private static Class<?> wrap(Class<?> type) {
+		if (!type.isPrimitive()) {
+			return type;
+		} else if (type == int.class) {
+			return Integer.class;
+		} else if (type == long.class) {
+			return Long.class;
+		} else if (type == double.class) {
+			return Double.class;
+		} else if (type == boolean.class) {
+			return Boolean.class;
+		} else if (type == float.class) {
+			return Float.class;
+		} else if (type == short.class) {
+			return Short.class;
+		} else if (type == byte.class) {
+			return Byte.class;
+		} else if (type == char.class) {
+			return Character.class;
+		}
+		return Void.class;
+	}
+
+	// creates an annotation instance with default attribute values, null if some attribute has no default
+	@SuppressWarnings("unchecked")
+	public static <A extends Annotation> A synthesize(Class<A> annotationClass) {
+		if (annotationClass == null || !annotationClass.isAnnotation()) {
+			return null;
+		}
+		Map<String, Object> values = new HashMap<>();
+		for (Method m : annotationClass.getDeclaredMethods()) {
+			if (m.getDefaultValue() == null) {
+				return null;
+			}
+			values.put(m.getName(), m.getDefaultValue());
+		}
+		return (A) Proxy.newProxyInstance(annotationClass.getClassLoader(), new Class<?>[] {annotationClass}, (proxy, method, args) -> {
+			switch (method.getName()) {
+				case "annotationType":
+					return annotationClass;
+				case "equals":
+					return proxy == args[0];
+				case "hashCode":
+					return System.identityHashCode(proxy);
+				case "toString":
+					return "@" + annotationClass.getName() + values;
+				default:
+					return Objects.requireNonNull(values.get(method.getName()));
+			}
+		});
+	}
+}
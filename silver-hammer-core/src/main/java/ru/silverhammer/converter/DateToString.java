@@ -29,12 +29,20 @@ import java.lang.annotation.ElementType;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
+import java.util.Date;
 
 @Target(ElementType.FIELD)
 @Retention(RetentionPolicy.RUNTIME)
 @ConverterReference(DateToStringConverter.class)
 public @interface DateToString {
 
+    // SimpleDateFormat pattern, letters unknown to it follow DateTimeFormatter
     String format();
 
+    // one of Date, LocalDate, LocalDateTime, Instant or ZonedDateTime
+    Class<?> type() default Date.class;
+
+    // language tag, default locale if empty
+    String locale() default "";
+
 }
@@ -25,29 +25,309 @@
  */
 package ru.silverhammer.converter;
 
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
+import java.text.ParsePosition;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.TextStyle;
+import java.time.temporal.ChronoField;
+import java.time.temporal.TemporalAccessor;
+import java.time.temporal.TemporalQueries;
 import java.util.Date;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
-public class DateToStringConverter implements IConverter<Date, String, DateToString> {
+import ru.silverhammer.processor.Stateless;
+
+@Stateless
+public class DateToStringConverter implements IConverter<Object, String, DateToString> {
+
+	private static final class Format {
+
+		private static final int REDUCED_BASE = 100;
+
+		// letters whose fields resolve below without DateTimeFormatter resolution
+		private static final String RESOLVABLE = "GyuMLdDEaHkKhmsSzZX";
+
+		private final DateTimeFormatter formatter;
+		private boolean resolvable = true;
+		private boolean twoDigitYear;
+
+		private Format(String pattern, Locale locale) {
+			DateTimeFormatterBuilder builder = new DateTimeFormatterBuilder()
+					.parseCaseInsensitive()
+					.parseLenient();
+			appendPattern(builder, pattern);
+			this.formatter = builder.toFormatter(locale);
+		}
+
+		// patterns keep their SimpleDateFormat meaning where DateTimeFormatter reads the letters differently
+		private void appendPattern(DateTimeFormatterBuilder builder, String pattern) {
+			int i = 0;
+			while (i < pattern.length()) {
+				char c = pattern.charAt(i);
+				if (c == '\'') {
+					StringBuilder literal = new StringBuilder();
+					int end = i + 1;
+					if (end < pattern.length() && pattern.charAt(end) == '\'') {
+						literal.append('\'');
+					} else {
+						while (end < pattern.length()) {
+							if (pattern.charAt(end) == '\'') {
+								if (end + 1 < pattern.length() && pattern.charAt(end + 1) == '\'') {
+									literal.append('\'');
+									end++;
+								} else {
+									break;
+								}
+							} else {
+								literal.append(pattern.charAt(end));
+							}
+							end++;
+						}
+					}
+					builder.appendLiteral(literal.toString());
+					i = end + 1;
+				} else if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')) {
+					int count = 1;
+					while (i + count < pattern.length() && pattern.charAt(i + count) == c) {
+						count++;
+					}
+					resolvable &= RESOLVABLE.indexOf(c) >= 0;
+					appendField(builder, c, count, pattern.substring(i, i + count));
+					i += count;
+				} else {
+					// brackets, braces and hashes are plain text for SimpleDateFormat
+					builder.appendLiteral(c);
+					i++;
+				}
+			}
+		}
+
+		private void appendField(DateTimeFormatterBuilder builder, char letter, int count, String letters) {
+			switch (letter) {
+			case 'y':
+				if (count == 2) {
+					// two digits parse into 100-199 and are pivoted against the current date, see pivot
+					builder.appendValueReduced(ChronoField.YEAR, 2, 2, REDUCED_BASE);
+					twoDigitYear = true;
+				} else {
+					builder.appendPattern(letters);
+				}
+				break;
+			case 'u':
+				appendValue(builder, ChronoField.DAY_OF_WEEK, count);
+				break;
+			case 'F':
+				appendValue(builder, ChronoField.ALIGNED_WEEK_OF_MONTH, count);
+				break;
+			case 'S':
+				appendValue(builder, ChronoField.MILLI_OF_SECOND, count);
+				break;
+			case 'a':
+				builder.appendText(ChronoField.AMPM_OF_DAY, TextStyle.SHORT);
+				break;
+			default:
+				builder.appendPattern(letters);
+			}
+		}
+
+		private static void appendValue(DateTimeFormatterBuilder builder, ChronoField field, int count) {
+			if (count == 1) {
+				builder.appendValue(field);
+			} else {
+				builder.appendValue(field, count);
+			}
+		}
+	}
+
+	private static final Map<String, Map<Locale, Format>> formats = new ConcurrentHashMap<>();
+	private static final Map<String, Locale> locales = new ConcurrentHashMap<>();
 
 	@Override
-	public String convertForward(Date source, DateToString annotation) {
+	public String convertForward(Object source, DateToString annotation) {
 		if (source != null) {
-			SimpleDateFormat fmt = new SimpleDateFormat(annotation.format());
-			return fmt.format(source);
+			DateTimeFormatter fmt = getFormat(annotation).formatter;
+			if (source instanceof Date) {
+				return fmt.format(((Date) source).toInstant().atZone(ZoneId.systemDefault()));
+			} else if (source instanceof Instant) {
+				return fmt.format(((Instant) source).atZone(ZoneId.systemDefault()));
+			} else if (source instanceof TemporalAccessor) {
+				return fmt.format((TemporalAccessor) source);
+			}
+			throw new IllegalArgumentException("Unsupported date type " + source.getClass().getName());
 		}
 		return "";
 	}
 
+	// partial or invalid text, the common case while typing, is rejected without throwing
 	@Override
-	public Date convertBackward(String destination, DateToString annotation) {
+	public Object convertBackward(String destination, DateToString annotation) {
 		if (destination != null && destination.trim().length() > 0) {
-			SimpleDateFormat fmt = new SimpleDateFormat(annotation.format());
+			Format format = getFormat(annotation);
+			ParsePosition position = new ParsePosition(0);
+			TemporalAccessor parsed = format.formatter.parseUnresolved(destination, position);
+			if (parsed == null || position.getIndex() != destination.length()) {
+				return null;
+			}
+			if (format.resolvable) {
+				LocalTime time = resolveTime(parsed);
+				LocalDate date = time == null ? null : resolveDate(parsed, format.twoDigitYear, time);
+				return date == null ? null : convert(date, time, parsed.query(TemporalQueries.zone()), annotation.type());
+			}
 			try {
-				return fmt.parse(destination);
-			} catch (ParseException ignore) {}
+				TemporalAccessor value = format.formatter.parse(destination);
+				LocalDate date = value.query(TemporalQueries.localDate());
+				LocalTime time = value.query(TemporalQueries.localTime());
+				time = time == null ? LocalTime.MIDNIGHT : time;
+				date = date == null ? LocalDate.ofEpochDay(0) : format.twoDigitYear ? pivot(date, time) : date;
+				return convert(date, time, value.query(TemporalQueries.zone()), annotation.type());
+			} catch (DateTimeException ignore) {}
 		}
 		return null;
 	}
+
+	private Object convert(LocalDate date, LocalTime time, ZoneId zone, Class<?> type) {
+		if (type == LocalDate.class) {
+			return date;
+		} else if (type == LocalDateTime.class) {
+			return LocalDateTime.of(date, time);
+		}
+		ZonedDateTime value = ZonedDateTime.of(date, time, zone == null ? ZoneId.systemDefault() : zone);
+		if (type == ZonedDateTime.class) {
+			return value;
+		} else if (type == Instant.class) {
+			return value.toInstant();
+		} else if (type == Date.class) {
+			return Date.from(value.toInstant());
+		}
+		throw new IllegalArgumentException("Unsupported date type " + type.getName());
+	}
+
+	// missing fields come from 1970-01-01 as in SimpleDateFormat, the day of week is not checked against the date
+	private static LocalDate resolveDate(TemporalAccessor parsed, boolean twoDigitYear, LocalTime time) {
+		long year = 1970;
+		if (parsed.isSupported(ChronoField.YEAR)) {
+			year = parsed.getLong(ChronoField.YEAR);
+			if (!ChronoField.YEAR.range().isValidValue(year)) {
+				return null;
+			}
+		} else if (parsed.isSupported(ChronoField.YEAR_OF_ERA)) {
+			year = parsed.getLong(ChronoField.YEAR_OF_ERA);
+			if (!isValid(parsed, ChronoField.ERA) || !ChronoField.YEAR_OF_ERA.range().isValidValue(year)) {
+				return null;
+			}
+			if (parsed.isSupported(ChronoField.ERA) && parsed.getLong(ChronoField.ERA) == 0) {
+				year = 1 - year;
+			}
+		}
+		if (!isValid(parsed, ChronoField.MONTH_OF_YEAR) || !isValid(parsed, ChronoField.DAY_OF_MONTH) || !isValid(parsed, ChronoField.DAY_OF_YEAR)) {
+			return null;
+		}
+		if (twoDigitYear && isReduced(year)) {
+			LocalDateTime start = LocalDateTime.now().minusYears(80);
+			year += start.getYear() - Math.floorMod(start.getYear(), 100) - Format.REDUCED_BASE;
+			if (year < start.getYear()) {
+				year += 100;
+			}
+			LocalDate result = toDate(parsed, (int) year);
+			return result != null && LocalDateTime.of(result, time).isBefore(start) ? toDate(parsed, (int) year + 100) : result;
+		}
+		return toDate(parsed, (int) year);
+	}
+
+	private static LocalDate toDate(TemporalAccessor parsed, int year) {
+		if (parsed.isSupported(ChronoField.DAY_OF_YEAR) && !parsed.isSupported(ChronoField.MONTH_OF_YEAR) && !parsed.isSupported(ChronoField.DAY_OF_MONTH)) {
+			int day = (int) parsed.getLong(ChronoField.DAY_OF_YEAR);
+			return day <= YearMonth.of(year, 12).atEndOfMonth().getDayOfYear() ? LocalDate.ofYearDay(year, day) : null;
+		}
+		int month = parsed.isSupported(ChronoField.MONTH_OF_YEAR) ? (int) parsed.getLong(ChronoField.MONTH_OF_YEAR) : 1;
+		int day = parsed.isSupported(ChronoField.DAY_OF_MONTH) ? (int) parsed.getLong(ChronoField.DAY_OF_MONTH) : 1;
+		return day <= YearMonth.of(year, month).lengthOfMonth() ? LocalDate.of(year, month, day) : null;
+	}
+
+	private static LocalTime resolveTime(TemporalAccessor parsed) {
+		if (!isValid(parsed, ChronoField.HOUR_OF_DAY) || !isValid(parsed, ChronoField.CLOCK_HOUR_OF_DAY)
+				|| !isValid(parsed, ChronoField.HOUR_OF_AMPM) || !isValid(parsed, ChronoField.CLOCK_HOUR_OF_AMPM)
+				|| !isValid(parsed, ChronoField.AMPM_OF_DAY) || !isValid(parsed, ChronoField.MINUTE_OF_HOUR)
+				|| !isValid(parsed, ChronoField.SECOND_OF_MINUTE) || !isValid(parsed, ChronoField.MILLI_OF_SECOND)) {
+			return null;
+		}
+		long hour;
+		if (parsed.isSupported(ChronoField.HOUR_OF_DAY)) {
+			hour = parsed.getLong(ChronoField.HOUR_OF_DAY);
+		} else if (parsed.isSupported(ChronoField.CLOCK_HOUR_OF_DAY)) {
+			hour = parsed.getLong(ChronoField.CLOCK_HOUR_OF_DAY) % 24;
+		} else {
+			if (parsed.isSupported(ChronoField.HOUR_OF_AMPM)) {
+				hour = parsed.getLong(ChronoField.HOUR_OF_AMPM);
+			} else if (parsed.isSupported(ChronoField.CLOCK_HOUR_OF_AMPM)) {
+				hour = parsed.getLong(ChronoField.CLOCK_HOUR_OF_AMPM) % 12;
+			} else {
+				hour = 0;
+			}
+			if (parsed.isSupported(ChronoField.AMPM_OF_DAY)) {
+				hour += parsed.getLong(ChronoField.AMPM_OF_DAY) * 12;
+			}
+		}
+		return LocalTime.of((int) hour, (int) getLong(parsed, ChronoField.MINUTE_OF_HOUR), (int) getLong(parsed, ChronoField.SECOND_OF_MINUTE),
+				(int) getLong(parsed, ChronoField.MILLI_OF_SECOND) * 1000000);
+	}
+
+	private static boolean isValid(TemporalAccessor parsed, ChronoField field) {
+		return !parsed.isSupported(field) || field.range().isValidValue(parsed.getLong(field));
+	}
+
+	private static long getLong(TemporalAccessor parsed, ChronoField field) {
+		return parsed.isSupported(field) ? parsed.getLong(field) : 0;
+	}
+
+	private static boolean isReduced(long year) {
+		return year >= Format.REDUCED_BASE && year < Format.REDUCED_BASE + 100;
+	}
+
+	// two-digit years fall within 80 years before and 20 years after now, as in SimpleDateFormat
+	private static LocalDate pivot(LocalDate date, LocalTime time) {
+		if (!isReduced(date.getYear())) {
+			return date;
+		}
+		LocalDateTime start = LocalDateTime.now().minusYears(80);
+		int year = start.getYear() - Math.floorMod(start.getYear(), 100) + date.getYear() - Format.REDUCED_BASE;
+		LocalDate result = date.withYear(year < start.getYear() ? year + 100 : year);
+		return LocalDateTime.of(result, time).isBefore(start) ? result.plusYears(100) : result;
+	}
+
+	private Format getFormat(DateToString annotation) {
+		Locale locale = getLocale(annotation.locale());
+		Map<Locale, Format> byLocale = formats.get(annotation.format());
+		if (byLocale == null) {
+			byLocale = formats.computeIfAbsent(annotation.format(), k -> new ConcurrentHashMap<>());
+		}
+		Format result = byLocale.get(locale);
+		if (result == null) {
+			result = new Format(annotation.format(), locale);
+			byLocale.putIfAbsent(locale, result);
+		}
+		return result;
+	}
+
+	private Locale getLocale(String tag) {
+		if (tag.isEmpty()) {
+			return Locale.getDefault();
+		}
+		Locale result = locales.get(tag);
+		if (result == null) {
+			result = Locale.forLanguageTag(tag);
+			locales.putIfAbsent(tag, result);
+		}
+		return result;
+	}
 }
@@ -27,6 +27,9 @@ package ru.silverhammer.converter;
 
 import java.io.File;
 
+import ru.silverhammer.processor.Stateless;
+
+@Stateless
 public class FileToStringConverter implements IConverter<File, String, FileToString> {
 
 	@Override
@@ -25,26 +25,53 @@
  */
 package ru.silverhammer.converter;
 
-import java.util.ArrayList;
+import java.util.AbstractCollection;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.Map;
 
 import ru.reflexio.ITypeReflection;
 import ru.reflexio.TypeReflection;
 
+import ru.silverhammer.processor.Stateless;
+
+@Stateless
 public class MapToCollectionConverter implements IConverter<Map<?, ?>, Collection<Object[]>, MapToCollection> {
 
+	private static final class MapView extends AbstractCollection<Object[]> {
+
+		private final Map<?, ?> map;
+
+		private MapView(Map<?, ?> map) {
+			this.map = map;
+		}
+
+		@Override
+		public Iterator<Object[]> iterator() {
+			Iterator<? extends Map.Entry<?, ?>> entries = map.entrySet().iterator();
+			return new Iterator<Object[]>() {
+				@Override
+				public boolean hasNext() {
+					return entries.hasNext();
+				}
+
+				@Override
+				public Object[] next() {
+					Map.Entry<?, ?> entry = entries.next();
+					return new Object[] {entry.getKey(), entry.getValue()};
+				}
+			};
+		}
+
+		@Override
+		public int size() {
+			return map.size();
+		}
+	}
+
 	@Override
 	public Collection<Object[]> convertForward(Map<?, ?> source, MapToCollection annotation) {
-		if (source != null) {
-			Collection<Object[]> result = new ArrayList<>();
-			for (Object key : source.keySet()) {
-				Object value = source.get(key);
-				result.add(new Object[] {key, value});
-			}
-			return result;
-		}
-		return null;
+		return source == null ? null : new MapView(source);
 	}
 
 	@Override
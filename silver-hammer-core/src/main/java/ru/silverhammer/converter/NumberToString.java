@@ -40,4 +40,7 @@ public @interface NumberToString {
 
     String format();
 
+    // language tag, default format locale if empty
+    String locale() default "";
+
 }
@@ -28,32 +28,185 @@ package ru.silverhammer.converter;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.text.DecimalFormat;
-import java.text.ParseException;
+import java.text.DecimalFormatSymbols;
+import java.text.ParsePosition;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
 
+import ru.silverhammer.processor.Stateless;
+
+@Stateless
 public class NumberToStringConverter implements IConverter<Number, String, NumberToString> {
 
+	private static final class Format {
+
+		private final DecimalFormat format;
+		private final boolean simple;
+		private final boolean integerOnly;
+		private final int minimumDigits;
+		private final char decimalSeparator;
+
+		private Format(String pattern, Locale locale) {
+			DecimalFormatSymbols symbols = DecimalFormatSymbols.getInstance(locale);
+			this.format = new DecimalFormat(pattern, symbols);
+			this.decimalSeparator = symbols.getDecimalSeparator();
+			boolean simple = symbols.getZeroDigit() == '0' && symbols.getMinusSign() == '-' && !pattern.isEmpty();
+			boolean integerOnly = true;
+			int minimumDigits = 0;
+			for (int i = 0; i < pattern.length() && simple; i++) {
+				char ch = pattern.charAt(i);
+				if (ch == '.' && integerOnly) {
+					integerOnly = false;
+				} else if (ch == '0') {
+					minimumDigits += integerOnly ? 1 : 0;
+				} else if (ch != '#') {
+					simple = false;
+				}
+			}
+			this.simple = simple;
+			this.integerOnly = integerOnly;
+			this.minimumDigits = minimumDigits;
+		}
+	}
+
+	private static final int MAX_DIGITS = 18;
+	private static final int MAX_EXACT_DIGITS = 15;
+	private static final long[] LONG_POWERS = new long[MAX_DIGITS + 1];
+	private static final double[] DOUBLE_POWERS = new double[MAX_DIGITS + 1];
+
+	static {
+		LONG_POWERS[0] = 1;
+		DOUBLE_POWERS[0] = 1;
+		for (int i = 1; i <= MAX_DIGITS; i++) {
+			LONG_POWERS[i] = LONG_POWERS[i - 1] * 10;
+			DOUBLE_POWERS[i] = DOUBLE_POWERS[i - 1] * 10;
+		}
+	}
+
+	private static final ThreadLocal<Map<String, Map<String, Format>>> formats = ThreadLocal.withInitial(HashMap::new);
+
 	@Override
 	public String convertForward(Number source, NumberToString annotation) {
 		if (source != null) {
-			DecimalFormat fmt = new DecimalFormat(annotation.format());
-			return fmt.format(source);
+			Format format = getFormat(annotation);
+			if (format.simple && format.integerOnly && isIntegral(source.getClass())) {
+				return formatInteger(source.longValue(), format.minimumDigits);
+			}
+			return format.format.format(source);
 		}
 		return "";
 	}
 
 	@Override
 	public Number convertBackward(String destination, NumberToString annotation) {
+		Class<? extends Number> type = annotation.type();
 		Number result = null;
 		if (destination != null && destination.trim().length() > 0) {
-			try {
-				DecimalFormat fmt = new DecimalFormat(annotation.format());
-				if (annotation.type() == BigDecimal.class) {
-					fmt.setParseBigDecimal(true);
+			Format format = getFormat(annotation);
+			if (format.simple) {
+				result = parseSimple(destination, type, format);
+				if (result != null) {
+					return result;
 				}
-				result = fmt.parse(destination);
-			} catch (ParseException ignore) {}
+			}
+			format.format.setParseBigDecimal(type == BigDecimal.class || type == BigInteger.class);
+			result = format.format.parse(destination, new ParsePosition(0));
+		}
+		return convertNumber(result, type);
+	}
+
+	private Format getFormat(NumberToString annotation) {
+		Map<String, Format> byLocale = formats.get().computeIfAbsent(annotation.format(), k -> new HashMap<>());
+		Format result = byLocale.get(annotation.locale());
+		if (result == null) {
+			Locale locale = annotation.locale().isEmpty() ? Locale.getDefault(Locale.Category.FORMAT) : Locale.forLanguageTag(annotation.locale());
+			result = new Format(annotation.format(), locale);
+			byLocale.put(annotation.locale(), result);
 		}
-		return convertNumber(result, annotation.type());
+		return result;
+	}
+
+	private String formatInteger(long value, int minimumDigits) {
+		String result = Long.toString(value);
+		int digits = value < 0 ? result.length() - 1 : result.length();
+		if (digits >= minimumDigits) {
+			return result;
+		}
+		StringBuilder builder = new StringBuilder(minimumDigits + 1);
+		if (value < 0) {
+			builder.append('-');
+		}
+		for (int i = digits; i < minimumDigits; i++) {
+			builder.append('0');
+		}
+		return builder.append(result, value < 0 ? 1 : 0, result.length()).toString();
+	}
+
+	// returns null if the text is not a plain number, leaving it to DecimalFormat
+	private Number parseSimple(String text, Class<?> type, Format format) {
+		int length = text.length();
+		int i = 0;
+		boolean negative = text.charAt(0) == '-';
+		if (negative) {
+			i++;
+		}
+		long mantissa = 0;
+		int digits = 0;
+		int scale = -1;
+		for (; i < length; i++) {
+			char ch = text.charAt(i);
+			if (ch >= '0' && ch <= '9') {
+				if (digits == MAX_DIGITS) {
+					return null;
+				}
+				mantissa = mantissa * 10 + (ch - '0');
+				digits++;
+				if (scale >= 0) {
+					scale++;
+				}
+			} else if (ch == format.decimalSeparator && scale < 0 && !format.integerOnly) {
+				scale = 0;
+			} else {
+				return null;
+			}
+		}
+		if (digits == 0) {
+			return null;
+		}
+		scale = Math.max(scale, 0);
+		long value = negative ? -mantissa : mantissa;
+		if (isIntegral(type)) {
+			return toIntegral(value / LONG_POWERS[scale], type);
+		} else if (type == Double.class || type == double.class || type == Float.class || type == float.class) {
+			if (digits > MAX_EXACT_DIGITS) {
+				return null;
+			}
+			double result = scale == 0 ? (double) mantissa : mantissa / DOUBLE_POWERS[scale];
+			result = negative ? -result : result;
+			return type == Double.class || type == double.class ? (Number) result : (Number) (float) result;
+		} else if (type == BigDecimal.class) {
+			return BigDecimal.valueOf(value, scale);
+		} else if (type == BigInteger.class) {
+			return BigInteger.valueOf(value / LONG_POWERS[scale]);
+		}
+		return null;
+	}
+
+	private boolean isIntegral(Class<?> type) {
+		return type == Integer.class || type == int.class || type == Long.class || type == long.class
+				|| type == Short.class || type == short.class || type == Byte.class || type == byte.class;
+	}
+
+	private Number toIntegral(long value, Class<?> target) {
+		if (target == Integer.class || target == int.class) {
+			return (int) value;
+		} else if (target == Long.class || target == long.class) {
+			return value;
+		} else if (target == Short.class || target == short.class) {
+			return (short) value;
+		}
+		return (byte) value;
 	}
 
 	private Number convertNumber(Number value, Class<?> target) {
@@ -72,9 +225,9 @@ public class NumberToStringConverter implements IConverter<Number, String, Numbe
 				} else if (target == Double.class || target == double.class) {
 					return value.doubleValue();
 				} else if (target == BigInteger.class) {
-					return new BigInteger(Long.toString(value.longValue()));
+					return toBigDecimal(value).toBigInteger();
 				} else if (target == BigDecimal.class) {
-					return value instanceof BigInteger ? new BigDecimal((BigInteger) value) : new BigDecimal(value.doubleValue());
+					return toBigDecimal(value);
 				}
 			}
 		} else if (target.isPrimitive()) {
@@ -94,4 +247,15 @@ public class NumberToStringConverter implements IConverter<Number, String, Numbe
 		}
 		return value;
 	}
+
+	private BigDecimal toBigDecimal(Number value) {
+		if (value instanceof BigDecimal) {
+			return (BigDecimal) value;
+		} else if (value instanceof BigInteger) {
+			return new BigDecimal((BigInteger) value);
+		} else if (value instanceof Double || value instanceof Float) {
+			return new BigDecimal(value.toString());
+		}
+		return BigDecimal.valueOf(value.longValue());
+	}
 }
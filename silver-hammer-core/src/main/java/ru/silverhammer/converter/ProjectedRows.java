@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2019, Dmitriy Shchekotin
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package ru.silverhammer.converter;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.function.Function;
+
+public final class ProjectedRows extends AbstractList<Object[]> implements RandomAccess {
+
+	private final Function<Object, Object[]> projection;
+	private final List<Object> sources;
+	private final List<Object[]> rows;
+
+	ProjectedRows(Function<Object, Object[]> projection, Collection<?> sources) {
+		this(projection, new ArrayList<>(sources), new ArrayList<>(Collections.nCopies(sources.size(), null)));
+	}
+
+	private ProjectedRows(Function<Object, Object[]> projection, List<Object> sources, List<Object[]> rows) {
+		this.projection = projection;
+		this.sources = sources;
+		this.rows = rows;
+	}
+
+	Function<Object, Object[]> getProjection() {
+		return projection;
+	}
+
+	boolean isProjected(int index) {
+		return rows.get(index) != null;
+	}
+
+	Object getSource(int index) {
+		return sources.get(index);
+	}
+
+	public ProjectedRows copy() {
+		return new ProjectedRows(projection, new ArrayList<>(sources), new ArrayList<>(rows));
+	}
+
+	// adds every row to the target, rows not projected yet are projected without being kept
+	public void copyTo(Collection<? super Object[]> target) {
+		for (int i = 0; i < rows.size(); i++) {
+			Object[] row = rows.get(i);
+			target.add(row == null ? projection.apply(sources.get(i)) : row);
+		}
+	}
+
+	// takes over the rows projected on a copy while both still hold the same sources
+	public void merge(ProjectedRows copy) {
+		int size = Math.min(rows.size(), copy.rows.size());
+		for (int i = 0; i < size; i++) {
+			if (rows.get(i) == null && sources.get(i) == copy.sources.get(i)) {
+				rows.set(i, copy.rows.get(i));
+			}
+		}
+	}
+
+	@Override
+	public Object[] get(int index) {
+		Object[] result = rows.get(index);
+		if (result == null) {
+			result = projection.apply(sources.get(index));
+			rows.set(index, result);
+		}
+		return result;
+	}
+
+	@Override
+	public int size() {
+		return rows.size();
+	}
+
+	@Override
+	public Object[] set(int index, Object[] row) {
+		Object[] result = get(index);
+		rows.set(index, row);
+		sources.set(index, null);
+		return result;
+	}
+
+	@Override
+	public void add(int index, Object[] row) {
+		rows.add(index, row);
+		sources.add(index, null);
+		modCount++;
+	}
+
+	@Override
+	public Object[] remove(int index) {
+		Object[] result = get(index);
+		rows.remove(index);
+		sources.remove(index);
+		modCount++;
+		return result;
+	}
+
+	@Override
+	protected void removeRange(int from, int to) {
+		rows.subList(from, to).clear();
+		sources.subList(from, to).clear();
+		modCount++;
+	}
+
+	@Override
+	public void clear() {
+		rows.clear();
+		sources.clear();
+		modCount++;
+	}
+}
@@ -28,15 +28,65 @@ package ru.silverhammer.converter;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 
-import ru.reflexio.IInstanceFieldReflection;
 import ru.reflexio.ITypeReflection;
 import ru.reflexio.TypeReflection;
+import ru.silverhammer.model.FieldPipeline;
 import ru.silverhammer.model.UiModel;
+import ru.silverhammer.processor.FieldBlueprint;
+import ru.silverhammer.processor.Stateless;
+import ru.silverhammer.processor.TypeBlueprint;
 
+@Stateless(global = false)
 public class ValueToItemsConverter implements IConverter<Object, Object, ValueToItems> {
 
+	private static final class Projection implements Function<Object, Object[]> {
+
+		private final ITypeReflection<?> type;
+		private final FieldBlueprint[] fields;
+		private final FieldPipeline[] pipelines;
+
+		private Projection(Class<?> cls, boolean annotatedOnly, UiModel model) {
+			List<FieldBlueprint> fields = new ArrayList<>();
+			for (FieldBlueprint fb : TypeBlueprint.of(cls).getFields()) {
+				if (!annotatedOnly || fb.isControl()) {
+					fields.add(fb);
+				}
+			}
+			this.type = new TypeReflection<>(cls);
+			this.fields = fields.toArray(new FieldBlueprint[0]);
+			this.pipelines = annotatedOnly ? new FieldPipeline[this.fields.length] : null;
+			for (int i = 0; annotatedOnly && i < this.fields.length; i++) {
+				pipelines[i] = model.getPipeline(this.fields[i].getField());
+			}
+		}
+
+		@Override
+		public Object[] apply(Object o) {
+			Object[] item = new Object[fields.length];
+			for (int i = 0; i < fields.length; i++) {
+				Object value = fields[i].getAccessor().getValue(o);
+				item[i] = pipelines == null ? value : pipelines[i].toControlValue(value);
+			}
+			return item;
+		}
+
+		private Object create(Object[] item) {
+			Object result = type.instantiate();
+			for (int i = 0; i < fields.length; i++) {
+				Object value = pipelines == null ? item[i] : pipelines[i].toFieldValue(item[i]);
+				fields[i].getAccessor().setValue(result, value);
+			}
+			return result;
+		}
+	}
+
 	private final UiModel model;
+	private final Map<Class<?>, Projection> projections = new ConcurrentHashMap<>();
+	private final Map<Class<?>, Projection> annotatedProjections = new ConcurrentHashMap<>();
 
 	public ValueToItemsConverter(UiModel model) {
 		this.model = model;
@@ -45,70 +95,53 @@ public class ValueToItemsConverter implements IConverter<Object, Object, ValueTo
 	@Override
 	public Object convertForward(Object source, ValueToItems annotation) {
 		if (source != null) {
-			List<IInstanceFieldReflection> fields = collectFields(annotation.value(), annotation);
+			Projection projection = getProjection(annotation);
 			// TODO: consider adding array support
 			if (source instanceof Collection) {
-				Collection<Object[]> result = new ArrayList<>();
-				for (Object o : (Collection<?>) source) {
-					result.add(createItem(o, fields, annotation));
-				}
-				return result;
+				return new ProjectedRows(projection, (Collection<?>) source);
 			} else {
-				return createItem(source, fields, annotation);
+				return projection.apply(source);
 			}
 		}
 		return null;
 	}
 	
-	private Object[] createItem(Object o, List<IInstanceFieldReflection> fields, ValueToItems annotation) {
-		Object[] item = new Object[fields.size()];
-		for (int i = 0; i < fields.size(); i++) {
-			IInstanceFieldReflection field = fields.get(i);
-			Object value = field.getValue(o);
-			item[i] = annotation.annotatedOnly() ? model.getControlValue(value, field) : value;
-		}
-		return item;
-	}
-	
 	@SuppressWarnings("unchecked")
 	@Override
 	public Object convertBackward(Object destination, ValueToItems annotation) {
 		if (destination != null) {
-			List<IInstanceFieldReflection> fields = collectFields(annotation.value(), annotation);
+			Projection projection = getProjection(annotation);
 			if (destination instanceof Collection) {
 				@SuppressWarnings("rawtypes")
 				ITypeReflection<? extends Collection> cr = new TypeReflection<>(annotation.collection());
 				Collection<Object> result = cr.instantiate();
-				for (Object[] row : (Collection<Object[]>) destination) {
-					result.add(createObject(row, fields, annotation));
+				if (destination instanceof ProjectedRows && ((ProjectedRows) destination).getProjection() == projection) {
+					ProjectedRows rows = (ProjectedRows) destination;
+					for (int i = 0; i < rows.size(); i++) {
+						// rows are always rebuilt, unprojected ones are projected without filling the cache
+						result.add(projection.create(rows.isProjected(i) ? rows.get(i) : projection.apply(rows.getSource(i))));
+					}
+				} else {
+					for (Object[] row : (Collection<Object[]>) destination) {
+						result.add(projection.create(row));
+					}
 				}
 				return result;
 			} else if (destination instanceof Object[]) {
-				return createObject((Object[]) destination, fields, annotation);
+				return projection.create((Object[]) destination);
 			}
 		}
 		return null;
 	}
-	
-	private Object createObject(Object[] item, List<IInstanceFieldReflection> fields, ValueToItems annotation) {
-		Object result = new TypeReflection<>(annotation.value()).instantiate();
-		for (int i = 0; i < fields.size(); i++) {
-			IInstanceFieldReflection field = fields.get(i);
-			Object value = item[i];
-			if (annotation.annotatedOnly()) {
-				value = model.getFieldValue(value, field);
-			}
-			field.setValue(result, value);
-		}
-		return result;
-	}
-	
-	private List<IInstanceFieldReflection> collectFields(Class<?> cls, ValueToItems annotation) {
-		List<IInstanceFieldReflection> result = new ArrayList<>();
-		ITypeReflection<?> reflection = new TypeReflection<>(cls);
-		for (IInstanceFieldReflection fr : reflection.getInstanceFields()) {
-			if (!annotation.annotatedOnly() || model.hasControlAnnotation(fr)) {
-				result.add(fr);
+
+	private Projection getProjection(ValueToItems annotation) {
+		Map<Class<?>, Projection> cache = annotation.annotatedOnly() ? annotatedProjections : projections;
+		Projection result = cache.get(annotation.value());
+		if (result == null) {
+			result = new Projection(annotation.value(), annotation.annotatedOnly(), model);
+			Projection existing = cache.putIfAbsent(annotation.value(), result);
+			if (existing != null) {
+				result = existing;
 			}
 		}
 		return result;
@@ -28,10 +28,14 @@ package ru.silverhammer.initializer;
 import ru.reflexio.IFieldReflection;
 import ru.reflexio.ITypeReflection;
 import ru.silverhammer.control.ICollectionControl;
+import ru.silverhammer.control.ListItemSource;
+import ru.silverhammer.processor.Stateless;
 
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 
+@Stateless
 public class EnumerationItemsInitializer implements IInitializer<ICollectionControl<?, ?, Object>, EnumerationItems> {
 
 	@Override
@@ -50,8 +54,6 @@ public class EnumerationItemsInitializer implements IInitializer<ICollectionCont
 		} else {
 			cl = annotation.value();
 		}
-		for (Object e : cl.getEnumConstants()) {
-			control.getCollection().add(e);
-		}
+		control.addItemSource(new ListItemSource<>(Arrays.asList((Object[]) cl.getEnumConstants())));
 	}
 }
@@ -36,5 +36,17 @@ import java.lang.annotation.Target;
 public @interface FileTreeItems {
 
 	String value();
-	
+
+	// lazy tree lists directory children in background when they are expanded, values below loaded levels are not selected
+	boolean lazy() default false;
+
+	// maximum depth of listed directories, negative means unlimited
+	int depth() default -1;
+
+	// maximum number of entries listed per directory, negative means unlimited
+	int limit() default -1;
+
+	// lazy tree keeps expanded directories up to date with file system changes
+	boolean watch() default false;
+
 }
@@ -26,25 +26,348 @@
 package ru.silverhammer.initializer;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 import ru.reflexio.IFieldReflection;
+import ru.silverhammer.control.ITree;
 import ru.silverhammer.control.ITreeControl;
+import ru.silverhammer.control.ITreeExpansionListener;
+import ru.silverhammer.model.UiModel;
+import ru.silverhammer.processor.Stateless;
 
+@Stateless(global = false)
 public class FileTreeItemsInitializer implements IInitializer<ITreeControl<?, ?, File>, FileTreeItems> {
 
+	private static final long BATCH_DELAY = 100;
+
+	private final UiModel model;
+
+	public FileTreeItemsInitializer(UiModel model) {
+		this.model = model;
+	}
+
 	@Override
 	public void init(ITreeControl<?, ?, File> control, FileTreeItems annotation, Object data, IFieldReflection field) {
 		File file = new File(annotation.value());
-		populate(control, null, file);
+		if (annotation.lazy()) {
+			new Loader(control, annotation).start(file);
+		} else {
+			control.getTree().add(null, file);
+			populate(control, annotation, file, 0);
+		}
+	}
+
+	private void populate(ITreeControl<?, ?, File> control, FileTreeItems annotation, File parent, int depth) {
+		if (isExpandable(annotation, depth) && parent.isDirectory()) {
+			List<File> files = new ArrayList<>();
+			List<File> directories = new ArrayList<>();
+			list(parent, annotation, depth + 1, files, directories, () -> false);
+			control.getTree().addAll(parent, files);
+			for (File f : directories) {
+				populate(control, annotation, f, depth + 1);
+			}
+		}
+	}
+
+	private static boolean isExpandable(FileTreeItems annotation, int depth) {
+		return annotation.depth() < 0 || depth < annotation.depth();
+	}
+
+	private static void list(File directory, FileTreeItems annotation, int depth, List<File> files, List<File> directories, Cancellation cancellation) {
+		boolean expandable = isExpandable(annotation, depth);
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory.toPath())) {
+			for (Path path : stream) {
+				if (cancellation.isCancelled() || (annotation.limit() >= 0 && files.size() >= annotation.limit())) {
+					break;
+				}
+				File file = path.toFile();
+				files.add(file);
+				if (expandable && Files.isDirectory(path)) {
+					directories.add(file);
+				}
+			}
+		} catch (IOException | DirectoryIteratorException | SecurityException e) {
+			// unreadable directory is shown as empty
+		}
+	}
+
+	private interface Cancellation {
+		boolean isCancelled();
+	}
+
+	private static class Change {
+
+		private final Set<File> added = new LinkedHashSet<>();
+		private final Set<File> removed = new HashSet<>();
+		private final Set<File> directories = new HashSet<>();
+
+		private List<File> listing;
 	}
-	
-	private void populate(ITreeControl<?, ?, File> control, File parent, File file) {
-		control.getTree().add(parent, file);
-		if (file.isDirectory()) {
-			File[] files = file.listFiles();
+
+	private final class Loader implements ITreeExpansionListener<File>, Cancellation {
+
+		private final ITreeControl<?, ?, File> control;
+		private final FileTreeItems annotation;
+		private final Map<File, Integer> depths = new HashMap<>();
+		private final Set<File> requested = new HashSet<>();
+		private final Map<File, Set<File>> children = new HashMap<>();
+		private final Map<WatchKey, File> keys = new ConcurrentHashMap<>();
+
+		private volatile boolean cancelled;
+		private WatchService watcher;
+
+		Loader(ITreeControl<?, ?, File> control, FileTreeItems annotation) {
+			this.control = control;
+			this.annotation = annotation;
+		}
+
+		void start(File root) {
+			control.getTree().add(null, root);
+			if (isExpandable(annotation, 0) && root.isDirectory()) {
+				depths.put(root, 0);
+				control.getTree().setExpandable(root, true);
+				control.addExpansionListener(this);
+				model.addDisposeListener(this::cancel);
+				load(root);
+			}
+		}
+
+		private void cancel() {
+			cancelled = true;
+			if (watcher != null) {
+				try {
+					watcher.close();
+				} catch (IOException e) {
+					// watch thread stops on cancellation anyway
+				}
+			}
+		}
+
+		@Override
+		public boolean isCancelled() {
+			return cancelled;
+		}
+
+		@Override
+		public void expanded(File item) {
+			if (depths.containsKey(item)) {
+				load(item);
+			}
+		}
+
+		private void load(File directory) {
+			if (!requested.add(directory)) {
+				return;
+			}
+			int depth = depths.get(directory) + 1;
+			model.getBackgroundExecutor().execute(() -> {
+				if (cancelled) {
+					return;
+				}
+				List<File> files = new ArrayList<>();
+				List<File> directories = new ArrayList<>();
+				list(directory, annotation, depth, files, directories, this);
+				if (!cancelled) {
+					model.getUiExecutor().execute(() -> apply(directory, files, directories, depth));
+				}
+			});
+		}
+
+		private void apply(File directory, List<File> files, List<File> directories, int depth) {
+			if (cancelled || !depths.containsKey(directory)) {
+				return;
+			}
+			control.getTree().setExpandable(directory, false);
+			control.getTree().addAll(directory, files);
+			for (File f : directories) {
+				depths.put(f, depth);
+				control.getTree().setExpandable(f, true);
+			}
+			children.put(directory, new HashSet<>(files));
+			if (annotation.watch()) {
+				watch(directory);
+			}
+		}
+
+		private void watch(File directory) {
+			try {
+				if (watcher == null) {
+					WatchService service = directory.toPath().getFileSystem().newWatchService();
+					watcher = service;
+					model.getBackgroundExecutor().execute(() -> watch(service));
+				}
+				WatchKey key = directory.toPath().register(watcher, StandardWatchEventKinds.ENTRY_CREATE,
+						StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+				keys.put(key, directory);
+			} catch (IOException | SecurityException | UnsupportedOperationException e) {
+				// directory stays a snapshot
+			}
+		}
+
+		private void watch(WatchService service) {
+			try {
+				while (!cancelled) {
+					Map<File, Set<File>> events = new LinkedHashMap<>();
+					Set<File> overflows = new HashSet<>();
+					WatchKey key = service.take();
+					long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(BATCH_DELAY);
+					while (key != null) {
+						collect(key, events, overflows);
+						long timeout = deadline - System.nanoTime();
+						key = timeout > 0 ? service.poll(timeout, TimeUnit.NANOSECONDS) : service.poll();
+					}
+					Map<File, Change> changes = resolve(events, overflows);
+					if (!cancelled && !changes.isEmpty()) {
+						model.getUiExecutor().execute(() -> apply(changes));
+					}
+				}
+			} catch (InterruptedException | ClosedWatchServiceException e) {
+				// model is disposed
+			}
+		}
+
+		private void collect(WatchKey key, Map<File, Set<File>> events, Set<File> overflows) {
+			File directory = keys.get(key);
+			if (directory == null && key.isValid() && key.watchable() instanceof Path) {
+				// events may arrive before the registering thread stores the key
+				directory = ((Path) key.watchable()).toFile();
+			}
+			for (WatchEvent<?> event : key.pollEvents()) {
+				if (directory == null) {
+					continue;
+				}
+				if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+					overflows.add(directory);
+				} else {
+					Path name = (Path) event.context();
+					events.computeIfAbsent(directory, d -> new LinkedHashSet<>()).add(new File(directory, name.toString()));
+				}
+			}
+			if (!key.reset()) {
+				keys.remove(key);
+			}
+		}
+
+		private Map<File, Change> resolve(Map<File, Set<File>> events, Set<File> overflows) {
+			Map<File, Change> result = new LinkedHashMap<>();
+			for (File directory : overflows) {
+				Change change = new Change();
+				change.listing = new ArrayList<>();
+				list(directory, annotation, Integer.MAX_VALUE, change.listing, new ArrayList<>(), this);
+				for (File f : change.listing) {
+					if (f.isDirectory()) {
+						change.directories.add(f);
+					}
+				}
+				result.put(directory, change);
+			}
+			for (Map.Entry<File, Set<File>> entry : events.entrySet()) {
+				if (result.containsKey(entry.getKey())) {
+					continue;
+				}
+				Change change = new Change();
+				for (File f : entry.getValue()) {
+					Path path = f.toPath();
+					if (Files.exists(path, LinkOption.NOFOLLOW_LINKS)) {
+						change.added.add(f);
+						if (Files.isDirectory(path)) {
+							change.directories.add(f);
+						}
+					} else {
+						change.removed.add(f);
+					}
+				}
+				result.put(entry.getKey(), change);
+			}
+			return result;
+		}
+
+		private void apply(Map<File, Change> changes) {
+			if (cancelled) {
+				return;
+			}
+			for (Map.Entry<File, Change> entry : changes.entrySet()) {
+				File directory = entry.getKey();
+				Set<File> known = children.get(directory);
+				if (known != null) {
+					apply(directory, known, entry.getValue());
+				}
+			}
+		}
+
+		private void apply(File directory, Set<File> known, Change change) {
+			if (change.listing != null) {
+				change.removed.addAll(known);
+				change.removed.removeAll(change.listing);
+				change.added.addAll(change.listing);
+			}
+			ITree<File> tree = control.getTree();
+			if (!change.removed.isEmpty()) {
+				for (int i = tree.getCount(directory) - 1; i >= 0; i--) {
+					File f = tree.get(directory, i);
+					if (change.removed.contains(f)) {
+						tree.remove(directory, i);
+						known.remove(f);
+						forget(f);
+					}
+				}
+			}
+			List<File> files = new ArrayList<>();
+			for (File f : change.added) {
+				if (annotation.limit() >= 0 && known.size() >= annotation.limit()) {
+					break;
+				}
+				if (known.add(f)) {
+					files.add(f);
+				}
+			}
+			tree.addAll(directory, files);
+			int depth = depths.get(directory) + 1;
+			if (isExpandable(annotation, depth)) {
+				for (File f : files) {
+					if (change.directories.contains(f)) {
+						depths.put(f, depth);
+						tree.setExpandable(f, true);
+					}
+				}
+			}
+		}
+
+		private void forget(File file) {
+			depths.remove(file);
+			requested.remove(file);
+			Set<File> files = children.remove(file);
 			if (files != null) {
 				for (File f : files) {
-					populate(control, file, f);
+					forget(f);
+				}
+			}
+			for (Iterator<Map.Entry<WatchKey, File>> i = keys.entrySet().iterator(); i.hasNext();) {
+				Map.Entry<WatchKey, File> entry = i.next();
+				if (entry.getValue().equals(file)) {
+					entry.getKey().cancel();
+					i.remove();
 				}
 			}
 		}
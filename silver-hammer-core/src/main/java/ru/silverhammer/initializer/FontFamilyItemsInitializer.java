@@ -26,16 +26,76 @@
 package ru.silverhammer.initializer;
 
 import java.awt.GraphicsEnvironment;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
 
 import ru.reflexio.IFieldReflection;
 import ru.silverhammer.control.ICollectionControl;
+import ru.silverhammer.processor.Stateless;
 
-public class FontFamilyItemsInitializer implements IInitializer<ICollectionControl<?, ?, String>, FontFamilyItems> {
+@Stateless
+public class FontFamilyItemsInitializer implements IAsyncInitializer<ICollectionControl<?, ?, String>, FontFamilyItems, String> {
+
+	private static final int CHUNK_SIZE = 256;
+	private static final AtomicReference<CompletableFuture<List<String>>> FAMILIES = new AtomicReference<>();
+
+	// starts enumerating font families in background before the first form needs them
+	public static void preload() {
+		getFamilies();
+	}
+
+	public static void refresh() {
+		CompletableFuture<List<String>> future = new CompletableFuture<>();
+		FAMILIES.set(future);
+		enumerate(future);
+	}
+
+	private static CompletableFuture<List<String>> getFamilies() {
+		CompletableFuture<List<String>> result = FAMILIES.get();
+		if (result == null) {
+			CompletableFuture<List<String>> future = new CompletableFuture<>();
+			if (FAMILIES.compareAndSet(null, future)) {
+				enumerate(future);
+			}
+			result = FAMILIES.get();
+		}
+		return result;
+	}
+
+	private static void enumerate(CompletableFuture<List<String>> future) {
+		Thread thread = new Thread(() -> {
+			try {
+				String[] names = GraphicsEnvironment.getLocalGraphicsEnvironment().getAvailableFontFamilyNames();
+				future.complete(Collections.unmodifiableList(Arrays.asList(names)));
+			} catch (RuntimeException | Error e) {
+				FAMILIES.compareAndSet(future, null);
+				future.completeExceptionally(e);
+			}
+		}, "silver-hammer-fonts");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	@Override
+	public boolean isAvailable(FontFamilyItems annotation) {
+		CompletableFuture<List<String>> families = FAMILIES.get();
+		return families != null && families.isDone() && !families.isCompletedExceptionally();
+	}
+
+	@Override
+	public void load(FontFamilyItems annotation, Object data, IFieldReflection field, IItemPublisher<String> publisher) {
+		List<String> names = getFamilies().join();
+		for (int i = 0; i < names.size() && !publisher.isCancelled(); i += CHUNK_SIZE) {
+			publisher.publish(names.subList(i, Math.min(i + CHUNK_SIZE, names.size())));
+		}
+	}
 
 	@Override
-	public void init(ICollectionControl<?, ?, String> control, FontFamilyItems annotation, Object data, IFieldReflection field) {
-		// TODO: revisit this implementation
-		for (String name : GraphicsEnvironment.getLocalGraphicsEnvironment().getAvailableFontFamilyNames()) {
+	public void publish(ICollectionControl<?, ?, String> control, FontFamilyItems annotation, List<String> items) {
+		for (String name : items) {
 			control.getCollection().add(name);
 		}
 	}
@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2019, Dmitriy Shchekotin
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package ru.silverhammer.initializer;
+
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.List;
+
+import ru.reflexio.IFieldReflection;
+import ru.silverhammer.control.IControl;
+
+// load runs in background and publishes items in chunks, publish runs on ui thread for every chunk
+public interface IAsyncInitializer<Control extends IControl<?, ?>, A extends Annotation, Item> extends IInitializer<Control, A> {
+
+	void load(A annotation, Object data, IFieldReflection fieldReflection, IItemPublisher<Item> publisher);
+
+	void publish(Control control, A annotation, List<Item> items);
+
+	// available items are loaded synchronously without a loading state
+	default boolean isAvailable(A annotation) {
+		return false;
+	}
+
+	@Override
+	default void init(Control control, A annotation, Object data, IFieldReflection fieldReflection) {
+		load(annotation, data, fieldReflection, items -> publish(control, annotation, new ArrayList<>(items)));
+	}
+
+}
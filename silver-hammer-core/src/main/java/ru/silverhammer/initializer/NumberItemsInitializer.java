@@ -25,15 +25,23 @@
  */
 package ru.silverhammer.initializer;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import ru.reflexio.IFieldReflection;
 import ru.silverhammer.control.ICollectionControl;
+import ru.silverhammer.control.ListItemSource;
+import ru.silverhammer.processor.Stateless;
 
+@Stateless
 public class NumberItemsInitializer implements IInitializer<ICollectionControl<?, ?, Number>, NumberItems> {
 
 	@Override
 	public void init(ICollectionControl<?, ?, Number> control, NumberItems annotation, Object data, IFieldReflection field) {
+		List<Number> items = new ArrayList<>(annotation.value().length);
 		for (double s : annotation.value()) {
-			control.getCollection().add(s);
+			items.add(s);
 		}
+		control.addItemSource(new ListItemSource<>(items));
 	}
 }
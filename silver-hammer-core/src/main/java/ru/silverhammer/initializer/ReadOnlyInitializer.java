@@ -27,7 +27,9 @@ package ru.silverhammer.initializer;
 
 import ru.reflexio.IFieldReflection;
 import ru.silverhammer.control.IControl;
+import ru.silverhammer.processor.Stateless;
 
+@Stateless
 public class ReadOnlyInitializer implements IInitializer<IControl<?, ?>, ReadOnly> {
 
     @Override
@@ -25,10 +25,16 @@
  */
 package ru.silverhammer.initializer;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import ru.reflexio.IFieldReflection;
 import ru.sanatio.conversion.IStringConverter;
 import ru.silverhammer.control.ICollectionControl;
+import ru.silverhammer.control.ListItemSource;
+import ru.silverhammer.processor.Stateless;
 
+@Stateless(global = false)
 public class StringItemsInitializer implements IInitializer<ICollectionControl<?, ?, String>, StringItems> {
 
 	private final IStringConverter converter;
@@ -39,8 +45,10 @@ public class StringItemsInitializer implements IInitializer<ICollectionControl<?
 
 	@Override
 	public void init(ICollectionControl<?, ?, String> control, StringItems annotation, Object data, IFieldReflection field) {
+		List<String> items = new ArrayList<>(annotation.value().length);
 		for (String s : annotation.value()) {
-			control.getCollection().add(converter.getString(s));
+			items.add(converter.getString(s));
 		}
+		control.addItemSource(new ListItemSource<>(items));
 	}
 }
@@ -29,6 +29,7 @@ import ru.reflexio.IInstanceFieldReflection;
 import ru.silverhammer.HorizontalAlignment;
 import ru.silverhammer.Location;
 import ru.silverhammer.VerticalAlignment;
+import ru.silverhammer.accessor.IFieldAccessor;
 import ru.silverhammer.control.IControl;
 
 public class ControlModel {
@@ -36,6 +37,8 @@ public class ControlModel {
 	private final IControl<?, ?> control;
 	private final Object data;
 	private final IInstanceFieldReflection fieldReflection;
+	private final IFieldAccessor accessor;
+	private final FieldPipeline pipeline;
 	
 	private String caption;
 	private Location captionLocation;
@@ -43,10 +46,12 @@ public class ControlModel {
 	private HorizontalAlignment horizontalAlignment;
 	private VerticalAlignment verticalAlignment;
 
-	public ControlModel(IControl<?, ?> control, Object data, IInstanceFieldReflection fieldReflection) {
+	public ControlModel(IControl<?, ?> control, Object data, IInstanceFieldReflection fieldReflection, IFieldAccessor accessor, FieldPipeline pipeline) {
 		this.control = control;
 		this.data = data;
 		this.fieldReflection = fieldReflection;
+		this.accessor = accessor;
+		this.pipeline = pipeline;
 	}
 
 	public IControl<?, ?> getControl() {
@@ -61,6 +66,14 @@ public class ControlModel {
 		return fieldReflection;
 	}
 
+	public IFieldAccessor getAccessor() {
+		return accessor;
+	}
+
+	public FieldPipeline getPipeline() {
+		return pipeline;
+	}
+
 	public String getCaption() {
 		return caption;
 	}
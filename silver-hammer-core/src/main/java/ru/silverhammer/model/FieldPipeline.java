@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2020, Dmitriy Shchekotin
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package ru.silverhammer.model;
+
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import ru.reflexio.IFieldReflection;
+import ru.sanatio.Validation;
+import ru.sanatio.ValidationResult;
+import ru.sanatio.validator.ValidatorReference;
+import ru.silverhammer.converter.ConverterReference;
+import ru.silverhammer.converter.ConverterRegistry;
+import ru.silverhammer.converter.IConverter;
+import ru.silverhammer.processor.InstanceRegistry;
+
+public final class FieldPipeline {
+
+	private static final Step[] EMPTY = new Step[0];
+
+	private static final class Step {
+
+		private final IConverter<Object, Object, Annotation> converter;
+		private final ValidatorReference validator;
+		private final Annotation annotation;
+
+		private Step(IConverter<Object, Object, Annotation> converter, ValidatorReference validator, Annotation annotation) {
+			this.converter = converter;
+			this.validator = validator;
+			this.annotation = annotation;
+		}
+	}
+
+	private final Step[] converters;
+	private final Step[] validation;
+
+	@SuppressWarnings("unchecked")
+	FieldPipeline(IFieldReflection field, Class<?> valueType, InstanceRegistry instances, ConverterRegistry registry) {
+		List<Step> converters = new ArrayList<>();
+		List<Step> validation = new ArrayList<>();
+		int validated = 0;
+		for (Annotation annotation : field.getAnnotations()) {
+			for (Annotation metaAnnotation : annotation.annotationType().getAnnotations()) {
+				if (metaAnnotation instanceof ConverterReference) {
+					IConverter<Object, Object, Annotation> converter = (IConverter<Object, Object, Annotation>) instances.get(((ConverterReference) metaAnnotation).value());
+					Step step = new Step(converter, null, annotation);
+					converters.add(step);
+					validation.add(step);
+				} else if (metaAnnotation instanceof ValidatorReference) {
+					validation.add(new Step(null, (ValidatorReference) metaAnnotation, annotation));
+					validated = validation.size();
+				}
+			}
+		}
+		if (converters.isEmpty() && valueType != null && registry != null) {
+			List<ConverterRegistry.Edge> path = registry.findPath(field.getType(), valueType);
+			for (int i = path == null ? -1 : path.size() - 1; i >= 0; i--) {
+				ConverterRegistry.Edge edge = path.get(i);
+				IConverter<Object, Object, Annotation> converter = (IConverter<Object, Object, Annotation>) instances.get(edge.getConverterClass());
+				Step step = new Step(converter, null, edge.getAnnotation());
+				converters.add(step);
+				validation.add(converters.size() - 1, step);
+				validated += validated > 0 ? 1 : 0;
+			}
+		}
+		this.converters = converters.isEmpty() ? EMPTY : converters.toArray(EMPTY);
+		this.validation = validated > 0 ? validation.subList(0, validated).toArray(EMPTY) : EMPTY;
+	}
+
+	public Object toControlValue(Object value) {
+		for (int i = converters.length - 1; i >= 0; i--) {
+			value = converters[i].converter.convertForward(value, converters[i].annotation);
+		}
+		return value;
+	}
+
+	public Object toFieldValue(Object value) {
+		for (Step step : converters) {
+			value = step.converter.convertBackward(value, step.annotation);
+		}
+		return value;
+	}
+
+	public boolean hasValidators() {
+		return validation.length > 0;
+	}
+
+	public boolean isValidatedBy(Set<Class<? extends Annotation>> validators) {
+		if (!validators.isEmpty()) {
+			for (Step step : validation) {
+				if (step.validator != null && validators.contains(step.annotation.annotationType())) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	public void validate(Object value, Validation validator, ValidationResult result) {
+		for (Step step : validation) {
+			if (step.converter != null) {
+				value = step.converter.convertBackward(value, step.annotation);
+			} else {
+				validator.validate(value, step.validator, step.annotation, result);
+				if (!result.isValid()) {
+					return;
+				}
+			}
+		}
+	}
+}
@@ -30,32 +30,239 @@ import ru.reflexio.*;
 import ru.sanatio.Validation;
 import ru.sanatio.ValidationResult;
 import ru.sanatio.conversion.IStringConverter;
-import ru.sanatio.validator.ValidatorReference;
-import ru.silverhammer.converter.ConverterReference;
-import ru.silverhammer.converter.IConverter;
 import ru.silverhammer.control.IControl;
-import ru.silverhammer.processor.ControlProcessor;
-import ru.silverhammer.processor.ProcessorReference;
+import ru.silverhammer.converter.ConverterRegistry;
+import ru.silverhammer.processor.InstanceRegistry;
+import ru.silverhammer.processor.FieldBlueprint;
+import ru.silverhammer.processor.TypeBlueprint;
+import ru.silverhammer.resolver.IControlResolver;
 
 import java.lang.annotation.Annotation;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Objects;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
 
 public class UiModel {
 
+    private static final ExecutorService BACKGROUND_EXECUTOR = Executors.newCachedThreadPool(r -> {
+        Thread result = new Thread(r, "silver-hammer-background");
+        result.setDaemon(true);
+        return result;
+    });
+
     private final List<CategoryModel> categories = new ArrayList<>();
     private final List<MethodModel> initializers = new ArrayList<>();
     private final List<MethodModel> validators = new ArrayList<>();
+    private final Map<IFieldReflection, Map<Class<?>, FieldPipeline>> pipelines = new ConcurrentHashMap<>();
+    private final Map<String, CategoryModel> categoryIndex = new HashMap<>();
+    private final Map<String, GroupModel> groupIndex = new HashMap<>();
+    private final Map<Object, Map<IFieldReflection, ControlModel>> controlIndex = new IdentityHashMap<>();
+    private final Set<ControlModel> pendingValidation = new LinkedHashSet<>();
+    private final List<IValidationListener> validationListeners = new ArrayList<>();
+    private final Set<Class<? extends Annotation>> asyncValidators = new HashSet<>();
+    private final Map<ControlModel, Object> runningValidations = new IdentityHashMap<>();
+    private final Set<ControlModel> invalidControls = new HashSet<>();
+    private final List<IValidityListener> validityListeners = new ArrayList<>();
+    private final List<Runnable> disposeListeners = new ArrayList<>();
+    private final Set<ControlModel> loadingControls = new HashSet<>();
 
     private final IInjector injector;
+    private final InstanceRegistry instances;
     private final Validation validation;
+    private final ValidationEngine validationEngine;
+
+    private IValidationScheduler validationScheduler = new ImmediateValidationScheduler();
+    private Executor uiExecutor = Runnable::run;
+    private ConverterRegistry converterRegistry;
+    private IControlResolver controlResolver;
+    private Executor validationExecutor = BACKGROUND_EXECUTOR;
+    private Executor backgroundExecutor = BACKGROUND_EXECUTOR;
+    private boolean valid = true;
+    private volatile boolean disposed;
 
     public UiModel(IInjector injector, IStringConverter converter) {
         this.injector = injector;
+        this.instances = new InstanceRegistry(injector);
         this.validation = new Validation(converter);
+        this.validationEngine = new ValidationEngine(this, injector);
+    }
+
+    public InstanceRegistry getInstances() {
+        return instances;
+    }
+
+    public IValidationScheduler getValidationScheduler() {
+        return validationScheduler;
+    }
+
+    public void setValidationScheduler(IValidationScheduler validationScheduler) {
+        this.validationScheduler.cancel();
+        this.validationScheduler = validationScheduler == null ? new ImmediateValidationScheduler() : validationScheduler;
+        if (!pendingValidation.isEmpty()) {
+            validatePending();
+        }
+    }
+
+    public Set<Class<? extends Annotation>> getAsyncValidators() {
+        return asyncValidators;
+    }
+
+    public Executor getUiExecutor() {
+        return uiExecutor;
+    }
+
+    public void setUiExecutor(Executor uiExecutor) {
+        this.uiExecutor = uiExecutor == null ? Runnable::run : uiExecutor;
+    }
+
+    public Executor getValidationExecutor() {
+        return validationExecutor;
+    }
+
+    public void setValidationExecutor(Executor validationExecutor) {
+        this.validationExecutor = validationExecutor == null ? BACKGROUND_EXECUTOR : validationExecutor;
+    }
+
+    public Executor getBackgroundExecutor() {
+        return backgroundExecutor;
+    }
+
+    public void setBackgroundExecutor(Executor backgroundExecutor) {
+        this.backgroundExecutor = backgroundExecutor == null ? BACKGROUND_EXECUTOR : backgroundExecutor;
+    }
+
+    public void addValidationListener(IValidationListener listener) {
+        if (listener != null) {
+            validationListeners.add(listener);
+        }
+    }
+
+    public void removeValidationListener(IValidationListener listener) {
+        validationListeners.remove(listener);
+    }
+
+    public void addValidityListener(IValidityListener listener) {
+        if (listener != null) {
+            validityListeners.add(listener);
+        }
+    }
+
+    public void removeValidityListener(IValidityListener listener) {
+        validityListeners.remove(listener);
+    }
+
+    public void addDisposeListener(Runnable listener) {
+        if (listener == null) {
+            return;
+        }
+        if (disposed) {
+            listener.run();
+        } else {
+            disposeListeners.add(listener);
+        }
+    }
+
+    public void removeDisposeListener(Runnable listener) {
+        disposeListeners.remove(listener);
+    }
+
+    public boolean isLoading() {
+        return !loadingControls.isEmpty();
+    }
+
+    // control is revalidated once its items are loaded
+    public void setLoading(ControlModel controlModel, boolean loading) {
+        controlModel.getControl().setLoading(loading);
+        if (loading) {
+            loadingControls.add(controlModel);
+            fireValidityChanged();
+        } else if (loadingControls.remove(controlModel)) {
+            scheduleValidation(controlModel);
+        }
+    }
+
+    public boolean isDisposed() {
+        return disposed;
+    }
+
+    // cancels scheduled validation and background work started for this model
+    public void dispose() {
+        if (disposed) {
+            return;
+        }
+        disposed = true;
+        validationScheduler.cancel();
+        pendingValidation.clear();
+        runningValidations.clear();
+        loadingControls.clear();
+        for (Runnable l : new ArrayList<>(disposeListeners)) {
+            l.run();
+        }
+        disposeListeners.clear();
+    }
+
+    public ConverterRegistry getConverterRegistry() {
+        return converterRegistry;
+    }
+
+    public void setConverterRegistry(ConverterRegistry converterRegistry) {
+        this.converterRegistry = converterRegistry;
+    }
+
+    public IControlResolver getControlResolver() {
+        return controlResolver;
+    }
+
+    public void setControlResolver(IControlResolver controlResolver) {
+        this.controlResolver = controlResolver;
+    }
+
+    // pipeline for the value type of the control the field annotation is bound to
+    public FieldPipeline getPipeline(IFieldReflection field) {
+        return getPipeline(field, getValueType(field));
+    }
+
+    private Class<?> getValueType(IFieldReflection field) {
+        if (controlResolver != null) {
+            for (Annotation a : field.getAnnotations()) {
+                Class<? extends IControl<?, ?>> controlClass = controlResolver.getControlClass(a.annotationType());
+                if (controlClass != null) {
+                    return ConverterRegistry.resolveTypeArgument(controlClass, IControl.class, 0);
+                }
+            }
+        }
+        return null;
+    }
+
+    // value type is the control value type used to infer converters for fields without explicit ones
+    public FieldPipeline getPipeline(IFieldReflection field, Class<?> valueType) {
+        // cached per value type, null value type is keyed as Void
+        Map<Class<?>, FieldPipeline> byType = pipelines.get(field);
+        if (byType == null) {
+            byType = pipelines.computeIfAbsent(field, k -> new ConcurrentHashMap<>());
+        }
+        Class<?> key = valueType == null ? Void.class : valueType;
+        FieldPipeline result = byType.get(key);
+        if (result == null) {
+            result = new FieldPipeline(field, valueType, instances, converterRegistry);
+            FieldPipeline existing = byType.putIfAbsent(key, result);
+            if (existing != null) {
+                result = existing;
+            }
+        }
+        return result;
     }
 
     public List<CategoryModel> getCategories() {
@@ -70,27 +277,45 @@ public class UiModel {
         return validators;
     }
 
-    public GroupModel findGroupModel(String groupId) {
-        for (CategoryModel c : categories) {
-            for (GroupModel g : c.getGroups()) {
-                if (Objects.equals(g.getId(), groupId)) {
-                    return g;
-                }
-            }
+    public void addCategory(CategoryModel category) {
+        categories.add(category);
+        categoryIndex.putIfAbsent(category.getCaption(), category);
+        for (GroupModel g : category.getGroups()) {
+            indexGroup(g);
         }
-        return null;
     }
 
-    public CategoryModel findCategoryModel(String caption) {
-        for (CategoryModel c : categories) {
-            if (Objects.equals(c.getCaption(), caption)) {
-                return c;
-            }
+    public void addGroup(CategoryModel category, GroupModel group) {
+        category.getGroups().add(group);
+        indexGroup(group);
+    }
+
+    public void addControl(GroupModel group, ControlModel control) {
+        group.getControls().add(control);
+        indexControl(control);
+    }
+
+    private void indexGroup(GroupModel group) {
+        groupIndex.putIfAbsent(group.getId(), group);
+        for (ControlModel c : group.getControls()) {
+            indexControl(c);
         }
-        return null;
+    }
+
+    private void indexControl(ControlModel control) {
+        controlIndex.computeIfAbsent(control.getData(), d -> new HashMap<>()).putIfAbsent(control.getFieldReflection(), control);
+    }
+
+    public GroupModel findGroupModel(String groupId) {
+        return groupIndex.get(groupId);
+    }
+
+    public CategoryModel findCategoryModel(String caption) {
+        return categoryIndex.get(caption);
     }
 
     public void visitControlModels(Consumer<ControlModel> consumer) {
+        validationEngine.recordAll();
         for (CategoryModel c : categories) {
             for (GroupModel ga : c.getGroups()) {
                 for (ControlModel ca : ga.getControls()) {
@@ -105,6 +330,7 @@ public class UiModel {
             for (GroupModel ga : c.getGroups()) {
                 for (ControlModel ca : ga.getControls()) {
                     if (predicate.test(ca)) {
+                        validationEngine.record(ca);
                         return ca;
                     }
                 }
@@ -115,9 +341,9 @@ public class UiModel {
 
     @SuppressWarnings("unchecked")
     public <T extends IControl<?, ?>> T findControl(Object data, Class<?> type, String fieldName) {
-        IFieldReflection field = new TypeReflection<>(type).findInstanceField(fieldName);
+        FieldBlueprint field = TypeBlueprint.of(type).findField(fieldName);
         if (field != null) {
-            ControlModel attrs = findControlModel(ca -> ca.getFieldReflection().equals(field) && ca.getData().equals(data));
+            ControlModel attrs = findControlModel(data, field.getField());
             if (attrs != null) {
                 return (T) attrs.getControl();
             }
@@ -125,42 +351,146 @@ public class UiModel {
         return null;
     }
 
+    public ControlModel findControlModel(Object data, IFieldReflection field) {
+        Map<IFieldReflection, ControlModel> controls = controlIndex.get(data);
+        ControlModel result = controls == null ? null : controls.get(field);
+        validationEngine.record(result);
+        return result;
+    }
+
     public <T extends IControl<?, ?>> T findControl(Object data, String fieldName) {
         return findControl(data, data.getClass(), fieldName);
     }
 
     public void commit() {
-		visitControlModels(c -> commit(c.getData(), c.getFieldReflection(), c.getControl()));
+		visitControlModels(this::commit);
 	}
 
-	private void commit(Object data, IInstanceFieldReflection field, IControl<?, ?> control) {
-		Object value = getFieldValue(control.getValue(), field);
-		field.setValue(data, value);
+	private void commit(ControlModel controlModel) {
+		Object value = controlModel.getPipeline().toFieldValue(controlModel.getControl().getValue());
+		controlModel.getAccessor().setValue(controlModel.getData(), value);
 	}
 
 	public boolean isValid() {
-		return findControlModel(ca -> !ca.getControl().isControlValid()) == null;
+		return invalidControls.isEmpty();
 	}
 
 	public void initialize() {
 		initializeMethods();
-		visitControlModels(ca -> init(ca.getControl(), ca.getFieldReflection()));
-		validateMethods();
+		visitControlModels(this::init);
+		validationEngine.validateAll();
+		refreshValidity();
 	}
 
-	private void init(IControl<?, ?> control, IFieldReflection field) {
-		validateControl(control, field);
-		control.addValueListener(c -> {
-			validateControl(control, field);
-			validateMethods();
-		});
+	// should be called after validation messages are set bypassing validators
+	public void refreshValidity() {
+		invalidControls.clear();
+		visitControlModels(this::updateValidity);
+		fireValidityChanged();
+	}
+
+	void updateValidity(ControlModel controlModel) {
+		if (controlModel.getControl().isControlValid()) {
+			invalidControls.remove(controlModel);
+		} else {
+			invalidControls.add(controlModel);
+		}
+	}
+
+	// listeners see the form valid only once no validation is pending and no control is loading
+	private void fireValidityChanged() {
+		boolean valid = invalidControls.isEmpty() && !isValidationPending() && !isLoading();
+		if (this.valid != valid) {
+			this.valid = valid;
+			for (IValidityListener l : validityListeners) {
+				l.validityChanged(valid);
+			}
+		}
+	}
+
+	private void init(ControlModel controlModel) {
+		validateControl(controlModel);
+		controlModel.getControl().addValueListener(c -> scheduleValidation(controlModel));
+	}
+
+	private void scheduleValidation(ControlModel controlModel) {
+		pendingValidation.add(controlModel);
+		validationScheduler.schedule(controlModel.getControl(), this::validatePending);
+		fireValidityChanged();
+	}
+
+	public boolean isValidationPending() {
+		return !pendingValidation.isEmpty() || !runningValidations.isEmpty();
+	}
+
+	public void validatePending() {
+		if (pendingValidation.isEmpty()) {
+			return;
+		}
+		List<ControlModel> batch = new ArrayList<>(pendingValidation);
+		pendingValidation.clear();
+		for (ControlModel controlModel : batch) {
+			validateControl(controlModel);
+		}
+		validationEngine.validate(batch);
+		fireValidityChanged();
+		fireValidated();
+	}
+
+	private void fireValidated() {
+		for (IValidationListener l : validationListeners) {
+			l.validated(this);
+		}
 	}
 
 	// TODO: consider exposing full data validation method
-	private void validateControl(IControl<?, ?> control, IFieldReflection field) {
+	private void validateControl(ControlModel controlModel) {
+		IControl<?, ?> control = controlModel.getControl();
+		FieldPipeline pipeline = controlModel.getPipeline();
+		if (pipeline.isValidatedBy(asyncValidators)) {
+			validateAsync(controlModel);
+		} else {
+			runningValidations.remove(controlModel);
+			control.setValidating(false);
+			control.setValidationMessage(pipeline.hasValidators() ? validate(pipeline, control.getValue()) : null);
+			updateValidity(controlModel);
+		}
+	}
+
+	private void validateAsync(ControlModel controlModel) {
+		IControl<?, ?> control = controlModel.getControl();
 		Object value = control.getValue();
+		Object token = new Object();
+		runningValidations.put(controlModel, token);
+		control.setValidating(true);
+		validationExecutor.execute(() -> {
+			String message = validateSafely(controlModel.getPipeline(), value);
+			uiExecutor.execute(() -> {
+				if (runningValidations.get(controlModel) == token) {
+					runningValidations.remove(controlModel);
+					control.setValidating(false);
+					control.setValidationMessage(message);
+					updateValidity(controlModel);
+					validationEngine.validate(Collections.singleton(controlModel));
+					fireValidityChanged();
+					fireValidated();
+				}
+			});
+		});
+	}
+
+	// a failing converter or validator is reported as the message, so the control never stays validating
+	private String validateSafely(FieldPipeline pipeline, Object value) {
+		try {
+			return validate(pipeline, value);
+		} catch (RuntimeException | Error e) {
+			return e.getMessage() == null ? e.toString() : e.getMessage();
+		}
+	}
+
+	private String validate(FieldPipeline pipeline, Object value) {
 		ValidationResult result = new ValidationResult();
-		validateValue(value, field, result);
+		pipeline.validate(value, validation, result);
         StringBuilder builder = new StringBuilder();
         for (String message : result) {
             if (builder.length() > 0) {
@@ -168,31 +498,7 @@ public class UiModel {
             }
             builder.append(message);
         }
-		control.setValidationMessage(builder.length() == 0 ? null : builder.toString());
-	}
-
-    private void validateValue(Object value, IFieldReflection field, ValidationResult result) {
-        for (Annotation annotation : field.getAnnotations()) {
-            for (Annotation metaAnnotation : annotation.annotationType().getAnnotations()) {
-                if (metaAnnotation instanceof ConverterReference) {
-                    ConverterReference cr = (ConverterReference) metaAnnotation;
-                    @SuppressWarnings("unchecked")
-                    IConverter<Object, Object, Annotation> converter = (IConverter<Object, Object, Annotation>) injector.instantiate(cr.value());
-                    value = converter.convertBackward(value, annotation);
-                } else if (metaAnnotation instanceof ValidatorReference) {
-                    validation.validate(value, (ValidatorReference) metaAnnotation, annotation, result);
-                    if (!result.isValid()) {
-                        return;
-                    }
-                }
-            }
-        }
-    }
-
-    private void validateMethods() {
-		for (MethodModel ma : validators) {
-			injector.invoke(ma.getData(), ma.getMethodReflection());
-		}
+		return builder.length() == 0 ? null : builder.toString();
 	}
 
 	private void initializeMethods() {
@@ -202,32 +508,14 @@ public class UiModel {
 	}
 
     public Object getControlValue(Object value, IFieldReflection field) {
-        List<MetaAnnotation<ConverterReference>> marked = field.getMetaAnnotations(ConverterReference.class);
-        for (int i = marked.size() - 1; i >= 0; i--) {
-            MetaAnnotation<ConverterReference> ma = marked.get(i);
-            @SuppressWarnings("unchecked")
-            IConverter<Object, Object, Annotation> converter = (IConverter<Object, Object, Annotation>) injector.instantiate(ma.getMetaAnnotation().value());
-            value = converter.convertForward(value, ma.getAnnotation());
-        }
-        return value;
+        return getPipeline(field).toControlValue(value);
     }
 
     public Object getFieldValue(Object value, IFieldReflection field) {
-        List<MetaAnnotation<ConverterReference>> marked = field.getMetaAnnotations(ConverterReference.class);
-        for (MetaAnnotation<ConverterReference> ma : marked) {
-            @SuppressWarnings("unchecked")
-            IConverter<Object, Object, Annotation> converter = (IConverter<Object, Object, Annotation>) injector.instantiate(ma.getMetaAnnotation().value());
-            value = converter.convertBackward(value, ma.getAnnotation());
-        }
-        return value;
+        return getPipeline(field).toFieldValue(value);
     }
 
     public boolean hasControlAnnotation(IFieldReflection fieldReflection) {
-        for (MetaAnnotation<ProcessorReference> m : fieldReflection.getMetaAnnotations(ProcessorReference.class)) {
-            if (m.getMetaAnnotation().value() == ControlProcessor.class) {
-                return true;
-            }
-        }
-        return false;
+        return FieldBlueprint.hasControlAnnotation(fieldReflection);
     }
 }
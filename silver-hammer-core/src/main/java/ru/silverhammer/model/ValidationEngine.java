@@ -0,0 +1,199 @@
+/*
+ * Copyright (c) 2020, Dmitriy Shchekotin
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package ru.silverhammer.model;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Logger;
+
+import ru.junkie.IInjector;
+import ru.silverhammer.processor.FieldBlueprint;
+import ru.silverhammer.processor.TypeBlueprint;
+import ru.silverhammer.processor.Validator;
+
+final class ValidationEngine {
+
+	private static final Logger LOGGER = Logger.getLogger(ValidationEngine.class.getName());
+
+	private static final class Entry {
+
+		private final MethodModel method;
+		private final int index;
+		private final boolean declared;
+		private Set<ControlModel> dependencies = Collections.emptySet();
+
+		private Entry(MethodModel method, int index, boolean declared) {
+			this.method = method;
+			this.index = index;
+			this.declared = declared;
+		}
+	}
+
+	private final UiModel model;
+	private final IInjector injector;
+	private final List<Entry> entries = new ArrayList<>();
+	private final List<Entry> untracked = new ArrayList<>();
+	private final Map<ControlModel, List<Entry>> dependents = new IdentityHashMap<>();
+
+	private Set<ControlModel> recording;
+	private boolean recordedAll;
+
+	ValidationEngine(UiModel model, IInjector injector) {
+		this.model = model;
+		this.injector = injector;
+	}
+
+	void record(ControlModel controlModel) {
+		if (recording != null && controlModel != null) {
+			recording.add(controlModel);
+		}
+	}
+
+	// lookups able to reach any control make the running validator depend on every change
+	void recordAll() {
+		if (recording != null) {
+			recordedAll = true;
+		}
+	}
+
+	void validateAll() {
+		entries.clear();
+		untracked.clear();
+		dependents.clear();
+		List<MethodModel> validators = model.getValidators();
+		for (int i = 0; i < validators.size(); i++) {
+			MethodModel method = validators.get(i);
+			Set<ControlModel> declared = findDeclaredDependencies(method);
+			Entry entry = new Entry(method, i, declared != null);
+			entries.add(entry);
+			if (declared != null) {
+				setDependencies(entry, declared);
+			}
+		}
+		for (Entry entry : entries) {
+			run(entry);
+		}
+	}
+
+	void validate(Collection<ControlModel> changed) {
+		Set<Entry> affected = Collections.newSetFromMap(new IdentityHashMap<>());
+		affected.addAll(untracked);
+		for (ControlModel c : changed) {
+			List<Entry> list = dependents.get(c);
+			if (list != null) {
+				affected.addAll(list);
+			}
+		}
+		List<Entry> batch = new ArrayList<>(affected);
+		if (batch.size() > 1) {
+			batch.sort((e1, e2) -> Integer.compare(e1.index, e2.index));
+		}
+		for (Entry entry : batch) {
+			run(entry);
+		}
+	}
+
+	private void run(Entry entry) {
+		Set<ControlModel> previous = recording;
+		boolean previousAll = recordedAll;
+		Set<ControlModel> touched = Collections.newSetFromMap(new IdentityHashMap<>());
+		recording = touched;
+		recordedAll = false;
+		boolean all;
+		try {
+			injector.invoke(entry.method.getData(), entry.method.getMethodReflection());
+		} finally {
+			all = recordedAll;
+			recording = previous;
+			recordedAll = previousAll;
+		}
+		if (!entry.declared) {
+			setDependencies(entry, all ? Collections.emptySet() : touched);
+		}
+		// messages may be set on any control the validator looked up, not only on its dependencies
+		if (all) {
+			model.visitControlModels(model::updateValidity);
+		} else {
+			for (ControlModel c : entry.dependencies) {
+				model.updateValidity(c);
+			}
+			for (ControlModel c : touched) {
+				model.updateValidity(c);
+			}
+		}
+	}
+
+	private void setDependencies(Entry entry, Set<ControlModel> dependencies) {
+		if (entry.dependencies.isEmpty()) {
+			untracked.remove(entry);
+		}
+		for (ControlModel c : entry.dependencies) {
+			List<Entry> list = dependents.get(c);
+			if (list != null) {
+				list.remove(entry);
+			}
+		}
+		entry.dependencies = dependencies;
+		if (dependencies.isEmpty()) {
+			untracked.add(entry);
+		}
+		for (ControlModel c : dependencies) {
+			dependents.computeIfAbsent(c, k -> new ArrayList<>()).add(entry);
+		}
+	}
+
+	private Set<ControlModel> findDeclaredDependencies(MethodModel method) {
+		Validator validator = method.getMethodReflection().getAnnotation(Validator.class);
+		if (validator == null || validator.dependsOn().length == 0) {
+			return null;
+		}
+		Object data = method.getData();
+		TypeBlueprint blueprint = TypeBlueprint.of(data.getClass());
+		Set<ControlModel> result = Collections.newSetFromMap(new IdentityHashMap<>());
+		for (String name : validator.dependsOn()) {
+			FieldBlueprint field = blueprint.findField(name);
+			if (field == null) {
+				return dependOnAll(method, "unknown field " + name);
+			}
+			ControlModel controlModel = model.findControlModel(data, field.getField());
+			if (controlModel != null) {
+				result.add(controlModel);
+			}
+		}
+		return result.isEmpty() ? dependOnAll(method, "no controls found") : result;
+	}
+
+	// an empty declared set keeps the validator untracked, so a broken dependsOn only costs wider revalidation
+	private Set<ControlModel> dependOnAll(MethodModel method, String reason) {
+		LOGGER.warning("Invalid dependsOn of validator " + method.getMethodReflection().getName() + ": " + reason + ", validating on every change");
+		return Collections.emptySet();
+	}
+}
@@ -25,35 +25,19 @@
  */
 package ru.silverhammer.processor;
 
-import ru.junkie.IInjector;
-import ru.reflexio.*;
-
 public class AnnotationProcessor {
 
-	private final IInjector injector;
+	private final InstanceRegistry instances;
 	
-	public AnnotationProcessor(IInjector injector) {
-		this.injector = injector;
-	}
-
-	public void process(Object data) {
-		TypeReflection<?> reflection = new TypeReflection<>(data.getClass());
-		for (ITypeReflection<?> cl : reflection.getTypeHierarchy()) {
-			processAnnotations(data, cl);
-		}
-		for (IInstanceMethodReflection method : reflection.getInstanceMethods()) {
-			processAnnotations(data, method);
-		}
-		for (IInstanceFieldReflection field : reflection.getInstanceFields()) {
-			processAnnotations(data, field);
-		}
+	public AnnotationProcessor(InstanceRegistry instances) {
+		this.instances = instances;
 	}
 
 	@SuppressWarnings("unchecked")
-	private void processAnnotations(Object data, IReflection reflection) {
-		for (MetaAnnotation<ProcessorReference> marked : reflection.getMetaAnnotations(ProcessorReference.class)) {
-			IProcessor processor = injector.instantiate(marked.getMetaAnnotation().value());
-			processor.process(data, reflection, marked.getAnnotation());
+	public void process(Object data) {
+		for (TypeBlueprint.Binding binding : TypeBlueprint.of(data.getClass()).getBindings()) {
+			IProcessor processor = instances.get(binding.getProcessorClass());
+			processor.process(data, binding.getReflection(), binding.getAnnotation());
 		}
 	}
 }
@@ -26,13 +26,16 @@
 package ru.silverhammer.processor;
 
 import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Objects;
 
 import ru.junkie.IInjector;
-import ru.reflexio.IFieldReflection;
 import ru.reflexio.IInstanceFieldReflection;
 import ru.reflexio.MetaAnnotation;
 import ru.sanatio.conversion.IStringConverter;
+import ru.silverhammer.converter.ConverterRegistry;
 import ru.silverhammer.initializer.InitializerReference;
 import ru.silverhammer.model.CategoryModel;
 import ru.silverhammer.model.ControlModel;
@@ -40,18 +43,23 @@ import ru.silverhammer.model.GroupModel;
 import ru.silverhammer.model.UiModel;
 import ru.silverhammer.control.IControl;
 import ru.silverhammer.decorator.IDecorator;
+import ru.silverhammer.initializer.IAsyncInitializer;
 import ru.silverhammer.initializer.IInitializer;
+import ru.silverhammer.initializer.IItemPublisher;
 import ru.silverhammer.resolver.IControlResolver;
 
+@Stateless(global = false)
 public class ControlProcessor implements IProcessor<IInstanceFieldReflection, Annotation> {
 
 	private final IStringConverter converter;
 	private final IInjector injector;
 	private final IControlResolver controlResolver;
+	private final InstanceRegistry instances;
 	private final UiModel model;
 	
-	public ControlProcessor(IInjector injector, IStringConverter converter, IControlResolver controlResolver, UiModel model) {
+	public ControlProcessor(IInjector injector, IStringConverter converter, IControlResolver controlResolver, InstanceRegistry instances, UiModel model) {
 		this.injector = injector;
+		this.instances = instances;
 		this.converter = converter;
 		this.controlResolver = controlResolver;
 		this.model = model;
@@ -62,17 +70,19 @@ public class ControlProcessor implements IProcessor<IInstanceFieldReflection, An
 	public void process(Object data, IInstanceFieldReflection reflection, Annotation annotation) {
 		Class<? extends IControl<?, ?>> controlClass = controlResolver.getControlClass(annotation.annotationType());
 		if (controlClass != null) {
+			FieldBlueprint blueprint = TypeBlueprint.of(data.getClass()).getField(reflection);
 			IControl control = injector.instantiate(controlClass);
-			decorateControl(control, data, reflection);
-			addControlAttributes(reflection.getAnnotation(GroupId.class), createControlModel(control, data, reflection));
+			decorateControl(control, data, blueprint);
+			ControlModel controlModel = createControlModel(control, data, reflection, blueprint);
+			addControlAttributes(blueprint.getGroupId(), controlModel);
 			control.init(annotation);
-			initializeControl(control, data, reflection);
+			initializeControl(controlModel, blueprint);
 		}
 	}
 
 	@SuppressWarnings("unchecked")
-	private void decorateControl(IControl<?, ?> control, Object data, IFieldReflection field) {
-		for (Annotation a : field.getAnnotations()) {
+	private void decorateControl(IControl<?, ?> control, Object data, FieldBlueprint blueprint) {
+		for (Annotation a : blueprint.getAnnotations()) {
 			Class<? extends IDecorator<?, ?>> decoratorClass = controlResolver.getDecoratorClass(a.annotationType());
 			if (decoratorClass != null) {
 				IDecorator decorator = injector.instantiate(decoratorClass);
@@ -83,34 +93,45 @@ public class ControlProcessor implements IProcessor<IInstanceFieldReflection, An
 	}
 
 	@SuppressWarnings("unchecked")
-	private void initializeControl(IControl<?, ?> control, Object data, IInstanceFieldReflection field) {
-		List<MetaAnnotation<InitializerReference>> marked = field.getMetaAnnotations(InitializerReference.class);
-		for (MetaAnnotation<InitializerReference> ma : marked) {
-			IInitializer<IControl<?, ?>, Annotation> initializer = (IInitializer<IControl<?, ?>, Annotation>) injector.instantiate(ma.getMetaAnnotation().value());
-			initializer.init(control, ma.getAnnotation(), data, field);
+	private void initializeControl(ControlModel controlModel, FieldBlueprint blueprint) {
+		IControl<?, ?> control = controlModel.getControl();
+		Object data = controlModel.getData();
+		Loading loading = null;
+		for (MetaAnnotation<InitializerReference> ma : blueprint.getInitializers()) {
+			IInitializer<IControl<?, ?>, Annotation> initializer = (IInitializer<IControl<?, ?>, Annotation>) instances.get(ma.getMetaAnnotation().value());
+			if (initializer instanceof IAsyncInitializer && !((IAsyncInitializer<IControl<?, ?>, Annotation, ?>) initializer).isAvailable(ma.getAnnotation())) {
+				if (loading == null) {
+					loading = new Loading(controlModel);
+				}
+				loading.add((IAsyncInitializer<IControl<?, ?>, Annotation, Object>) initializer, ma.getAnnotation());
+			} else {
+				initializer.init(control, ma.getAnnotation(), data, controlModel.getFieldReflection());
+			}
 		}
-		Object value = field.getValue(data);
-		value = model.getControlValue(value, field);
+		Object value = controlModel.getAccessor().getValue(data);
+		value = controlModel.getPipeline().toControlValue(value);
 		((IControl<Object, ?>) control).setValue(value);
+		if (loading != null) {
+			loading.start(value);
+		}
 	}
 
-	private void addControlAttributes(GroupId gi, ControlModel controlModel) {
-		String groupId = gi == null ? null : gi.value();
+	private void addControlAttributes(String groupId, ControlModel controlModel) {
 		GroupModel groupModel = model.findGroupModel(groupId);
 		if (groupModel == null) {
 			groupModel = new GroupModel(groupId);
 			if (model.getCategories().isEmpty()) {
-				model.getCategories().add(new CategoryModel()); // TODO: revisit
+				model.addCategory(new CategoryModel()); // TODO: revisit
 			}
-			model.getCategories().get(0).getGroups().add(groupModel);
+			model.addGroup(model.getCategories().get(0), groupModel);
 		}
-		groupModel.getControls().add(controlModel);
+		model.addControl(groupModel, controlModel);
 	}
 	
-	private ControlModel createControlModel(IControl<?, ?> control, Object data, IInstanceFieldReflection field) {
-		ControlModel result = new ControlModel(control, data, field);
-		Caption caption = field.getAnnotation(Caption.class);
-		Description description = field.getAnnotation(Description.class);
+	private ControlModel createControlModel(IControl<?, ?> control, Object data, IInstanceFieldReflection field, FieldBlueprint blueprint) {
+		ControlModel result = new ControlModel(control, data, field, blueprint.getAccessor(), model.getPipeline(field, ConverterRegistry.resolveTypeArgument(control.getClass(), IControl.class, 0)));
+		Caption caption = blueprint.getCaption();
+		Description description = blueprint.getDescription();
 		if (caption != null) {
 			result.setCaption(converter.getString(caption.value()));
 			result.setCaptionLocation(caption.location());
@@ -122,4 +143,76 @@ public class ControlProcessor implements IProcessor<IInstanceFieldReflection, An
 		}
 		return result;
 	}
+
+	// value is applied after every published chunk until the control accepts it or the user changes it
+	private final class Loading {
+
+		private final ControlModel controlModel;
+		private final List<Runnable> tasks = new ArrayList<>();
+
+		private int pending;
+		private Object value;
+		private Object expected;
+		private boolean applied;
+
+		Loading(ControlModel controlModel) {
+			this.controlModel = controlModel;
+		}
+
+		void add(IAsyncInitializer<IControl<?, ?>, Annotation, Object> initializer, Annotation annotation) {
+			IItemPublisher<Object> publisher = new IItemPublisher<Object>() {
+				@Override
+				public void publish(Collection<? extends Object> items) {
+					List<Object> chunk = new ArrayList<>(items);
+					model.getUiExecutor().execute(() -> {
+						if (!model.isDisposed()) {
+							initializer.publish(controlModel.getControl(), annotation, chunk);
+							applyValue();
+						}
+					});
+				}
+
+				@Override
+				public boolean isCancelled() {
+					return model.isDisposed();
+				}
+			};
+			tasks.add(() -> initializer.load(annotation, controlModel.getData(), controlModel.getFieldReflection(), publisher));
+		}
+
+		void start(Object value) {
+			this.value = value;
+			expected = controlModel.getControl().getValue();
+			applied = Objects.equals(expected, value);
+			pending = tasks.size();
+			model.setLoading(controlModel, true);
+			for (Runnable task : tasks) {
+				model.getBackgroundExecutor().execute(() -> {
+					try {
+						if (!model.isDisposed()) {
+							task.run();
+						}
+					} finally {
+						model.getUiExecutor().execute(this::finished);
+					}
+				});
+			}
+		}
+
+		@SuppressWarnings("unchecked")
+		private void applyValue() {
+			IControl<Object, ?> control = (IControl<Object, ?>) controlModel.getControl();
+			if (!applied && Objects.equals(control.getValue(), expected)) {
+				control.setValue(value);
+				expected = control.getValue();
+				applied = Objects.equals(expected, value);
+			}
+		}
+
+		private void finished() {
+			if (--pending == 0 && !model.isDisposed()) {
+				model.setLoading(controlModel, false);
+			}
+		}
+	}
 }
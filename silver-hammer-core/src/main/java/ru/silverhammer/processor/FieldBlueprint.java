@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2020, Dmitriy Shchekotin
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package ru.silverhammer.processor;
+
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import ru.reflexio.IFieldReflection;
+import ru.reflexio.IInstanceFieldReflection;
+import ru.reflexio.MetaAnnotation;
+import ru.silverhammer.accessor.IFieldAccessor;
+import ru.silverhammer.accessor.ReflectionAccessor;
+import ru.silverhammer.converter.ConverterReference;
+import ru.silverhammer.initializer.InitializerReference;
+
+public final class FieldBlueprint {
+
+	private final IFieldReflection field;
+	private final String groupId;
+	private final Caption caption;
+	private final Description description;
+	private final List<Annotation> annotations;
+	private final List<MetaAnnotation<InitializerReference>> initializers;
+	private final List<MetaAnnotation<ConverterReference>> converters;
+	private final boolean control;
+	private final IFieldAccessor accessor;
+
+	public FieldBlueprint(IFieldReflection field) {
+		this(field, field instanceof IInstanceFieldReflection ? new ReflectionAccessor((IInstanceFieldReflection) field) : null, true);
+	}
+
+	// a field a generated binder reported without UI annotations is not scanned
+	FieldBlueprint(IFieldReflection field, IFieldAccessor accessor, boolean annotated) {
+		this.field = field;
+		this.accessor = accessor;
+		if (annotated) {
+			GroupId gi = field.getAnnotation(GroupId.class);
+			this.groupId = gi == null ? null : gi.value();
+			this.caption = field.getAnnotation(Caption.class);
+			this.description = field.getAnnotation(Description.class);
+			List<Annotation> annotations = new ArrayList<>();
+			for (Annotation a : field.getAnnotations()) {
+				annotations.add(a);
+			}
+			this.annotations = Collections.unmodifiableList(annotations);
+			this.initializers = Collections.unmodifiableList(new ArrayList<>(field.getMetaAnnotations(InitializerReference.class)));
+			this.converters = Collections.unmodifiableList(new ArrayList<>(field.getMetaAnnotations(ConverterReference.class)));
+			this.control = hasControlAnnotation(field);
+		} else {
+			this.groupId = null;
+			this.caption = null;
+			this.description = null;
+			this.annotations = Collections.emptyList();
+			this.initializers = Collections.emptyList();
+			this.converters = Collections.emptyList();
+			this.control = false;
+		}
+	}
+
+	public static boolean hasControlAnnotation(IFieldReflection field) {
+		for (MetaAnnotation<ProcessorReference> m : field.getMetaAnnotations(ProcessorReference.class)) {
+			if (m.getMetaAnnotation().value() == ControlProcessor.class) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	public IFieldReflection getField() {
+		return field;
+	}
+
+	public String getGroupId() {
+		return groupId;
+	}
+
+	public Caption getCaption() {
+		return caption;
+	}
+
+	public Description getDescription() {
+		return description;
+	}
+
+	public List<Annotation> getAnnotations() {
+		return annotations;
+	}
+
+	public List<MetaAnnotation<InitializerReference>> getInitializers() {
+		return initializers;
+	}
+
+	public List<MetaAnnotation<ConverterReference>> getConverters() {
+		return converters;
+	}
+
+	public boolean isControl() {
+		return control;
+	}
+
+	public IFieldAccessor getAccessor() {
+		return accessor;
+	}
+}
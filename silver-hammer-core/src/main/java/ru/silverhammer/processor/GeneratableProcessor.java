@@ -28,18 +28,18 @@ package ru.silverhammer.processor;
 import java.lang.reflect.Array;
 import java.util.Collection;
 
-import ru.junkie.IInjector;
 import ru.reflexio.IInstanceFieldReflection;
 
+@Stateless(global = false)
 public class GeneratableProcessor extends AnnotationProcessor implements IProcessor<IInstanceFieldReflection, Generatable> {
 
-	public GeneratableProcessor(IInjector injector) {
-		super(injector);
+	public GeneratableProcessor(InstanceRegistry instances) {
+		super(instances);
 	}
 
 	@Override
 	public void process(Object data, IInstanceFieldReflection reflection, Generatable annotation) {
-		Object val = reflection.getValue(data);
+		Object val = TypeBlueprint.of(data.getClass()).getField(reflection).getAccessor().getValue(data);
 		if (reflection.getType().isArray()) {
 			int length = Array.getLength(val);
 			for (int i = 0; i < length; i++) {
@@ -29,6 +29,7 @@ import ru.reflexio.IInstanceMethodReflection;
 import ru.silverhammer.model.MethodModel;
 import ru.silverhammer.model.UiModel;
 
+@Stateless(global = false)
 public class InitializerProcessor implements IProcessor<IInstanceMethodReflection, Initializer> {
 
 	private final UiModel model;
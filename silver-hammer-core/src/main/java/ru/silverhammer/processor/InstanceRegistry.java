@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2020, Dmitriy Shchekotin
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package ru.silverhammer.processor;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import ru.junkie.IInjector;
+
+public final class InstanceRegistry {
+
+	private static final Map<Class<?>, Object> GLOBAL = new ConcurrentHashMap<>();
+
+	private final Map<Class<?>, Object> local = new ConcurrentHashMap<>();
+	private final IInjector injector;
+
+	public InstanceRegistry(IInjector injector) {
+		this.injector = injector;
+	}
+
+	@SuppressWarnings("unchecked")
+	public <T> T get(Class<T> type) {
+		Stateless stateless = type.getAnnotation(Stateless.class);
+		if (stateless == null) {
+			return injector.instantiate(type);
+		}
+		Map<Class<?>, Object> instances = stateless.global() ? GLOBAL : local;
+		Object result = instances.get(type);
+		if (result == null) {
+			result = injector.instantiate(type);
+			Object existing = instances.putIfAbsent(type, result);
+			if (existing != null) {
+				result = existing;
+			}
+		}
+		return (T) result;
+	}
+
+	public static void clear() {
+		GLOBAL.clear();
+	}
+}
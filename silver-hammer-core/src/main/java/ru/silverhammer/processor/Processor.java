@@ -25,10 +25,17 @@
  */
 package ru.silverhammer.processor;
 
+import java.lang.annotation.Annotation;
+import java.util.HashSet;
+import java.util.Set;
+
 import ru.junkie.IInjector;
 import ru.junkie.Injector;
 import ru.sanatio.conversion.IStringConverter;
 import ru.sanatio.conversion.SameStringConverter;
+import ru.sanatio.validator.FileExists;
+import ru.silverhammer.accessor.Accessors;
+import ru.silverhammer.converter.ConverterRegistry;
 import ru.silverhammer.model.UiModel;
 import ru.silverhammer.resolver.IControlResolver;
 
@@ -36,6 +43,8 @@ public final class Processor {
 	
 	private final IStringConverter converter;
 	private final IControlResolver controlResolver;
+	private final Set<Class<? extends Annotation>> asyncValidators = new HashSet<>();
+	private final ConverterRegistry converterRegistry = new ConverterRegistry();
 
 	public Processor(IControlResolver controlResolver) {
 		this(controlResolver, new SameStringConverter());
@@ -44,16 +53,49 @@ public final class Processor {
 	public Processor(IControlResolver controlResolver, IStringConverter converter) {
 		this.converter = converter;
 		this.controlResolver = controlResolver;
+		this.asyncValidators.add(FileExists.class);
+	}
+
+	public ConverterRegistry getConverterRegistry() {
+		return converterRegistry;
+	}
+
+	public void addAsyncValidator(Class<? extends Annotation> validatorClass) {
+		asyncValidators.add(validatorClass);
+	}
+
+	public void removeAsyncValidator(Class<? extends Annotation> validatorClass) {
+		asyncValidators.remove(validatorClass);
+	}
+
+	public static void warmUp(Class<?>... types) {
+		for (Class<?> type : types) {
+			if (type != null) {
+				TypeBlueprint.of(type);
+			}
+		}
+	}
+
+	public static void clearCache() {
+		TypeBlueprint.clear();
+		InstanceRegistry.clear();
+		Accessors.clear();
 	}
 
 	// TODO: consider adding error log
 	public UiModel process(Object... data) {
 		IInjector injector = new Injector();
-		AnnotationProcessor processor = new AnnotationProcessor(injector);
 		UiModel model = new UiModel(injector, converter);
+		model.setValidationScheduler(controlResolver.createValidationScheduler());
+		model.setUiExecutor(controlResolver.getUiExecutor());
+		model.getAsyncValidators().addAll(asyncValidators);
+		model.setConverterRegistry(converterRegistry);
+		model.setControlResolver(controlResolver);
+		AnnotationProcessor processor = new AnnotationProcessor(model.getInstances());
 
 		injector.bind(IStringConverter.class, converter);
 		injector.bind(IControlResolver.class, controlResolver);
+		injector.bind(InstanceRegistry.class, model.getInstances());
 		injector.bind(UiModel.class, model);
 
 		for (Object o : data) {
@@ -36,6 +36,7 @@ import ru.silverhammer.processor.Structure.Category;
 import ru.silverhammer.processor.Structure.Group;
 
 // TODO: consider adding groups based on their occurrence in class fields
+@Stateless(global = false)
 public class StructureProcessor implements IProcessor<ITypeReflection<?>, Annotation>  {
 
 	private final IStringConverter converter;
@@ -58,12 +59,11 @@ public class StructureProcessor implements IProcessor<ITypeReflection<?>, Annota
 			CategoryModel categoryModel = model.findCategoryModel(converter.getString(category.caption()));
 			if (categoryModel == null) {
 				categoryModel = createCategoryModel(category);
-				model.getCategories().add(categoryModel);
+				model.addCategory(categoryModel);
 			}
 			for (Group g : category.groups()) {
 				if (model.findGroupModel(g.value()) == null) {
-					GroupModel groupModel = createGroupModel(g);
-					categoryModel.getGroups().add(groupModel);
+					model.addGroup(categoryModel, createGroupModel(g));
 				}
 			}
 		}
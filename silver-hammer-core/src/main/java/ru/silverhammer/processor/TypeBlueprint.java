@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2020, Dmitriy Shchekotin
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package ru.silverhammer.processor;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import ru.reflexio.IFieldReflection;
+import ru.reflexio.IInstanceFieldReflection;
+import ru.reflexio.IInstanceMethodReflection;
+import ru.reflexio.IReflection;
+import ru.reflexio.ITypeReflection;
+import ru.reflexio.MetaAnnotation;
+import ru.reflexio.TypeReflection;
+import ru.silverhammer.accessor.Accessors;
+import ru.silverhammer.accessor.IFieldAccessor;
+import ru.silverhammer.accessor.ReflectionAccessor;
+
+public final class TypeBlueprint {
+
+	public static final class Binding {
+
+		private final IReflection reflection;
+		private final Annotation annotation;
+		private final Class<? extends IProcessor<?, ?>> processorClass;
+
+		private Binding(IReflection reflection, Annotation annotation, Class<? extends IProcessor<?, ?>> processorClass) {
+			this.reflection = reflection;
+			this.annotation = annotation;
+			this.processorClass = processorClass;
+		}
+
+		public IReflection getReflection() {
+			return reflection;
+		}
+
+		public Annotation getAnnotation() {
+			return annotation;
+		}
+
+		public Class<? extends IProcessor<?, ?>> getProcessorClass() {
+			return processorClass;
+		}
+	}
+
+	private static final Map<Class<?>, TypeBlueprint> blueprints = new ConcurrentHashMap<>();
+
+	private final Class<?> type;
+	private final List<Binding> bindings;
+	private final List<FieldBlueprint> fields;
+	private final Map<IFieldReflection, FieldBlueprint> fieldMapping;
+	private final Map<String, FieldBlueprint> fieldNames;
+
+	private TypeBlueprint(Class<?> type) {
+		this.type = type;
+		ITypeReflection<?> reflection = new TypeReflection<>(type);
+		List<Binding> bindings = new ArrayList<>();
+		for (ITypeReflection<?> cl : reflection.getTypeHierarchy()) {
+			addBindings(bindings, cl);
+		}
+		for (IInstanceMethodReflection method : reflection.getInstanceMethods()) {
+			addBindings(bindings, method);
+		}
+		List<FieldBlueprint> fields = new ArrayList<>();
+		Map<IFieldReflection, FieldBlueprint> fieldMapping = new HashMap<>();
+		Map<String, FieldBlueprint> fieldNames = new HashMap<>();
+		for (IInstanceFieldReflection field : reflection.getInstanceFields()) {
+			Field f = Accessors.findField(type, field);
+			boolean annotated = f == null || isAnnotated(f);
+			if (annotated) {
+				addBindings(bindings, field);
+			}
+			IFieldAccessor accessor = f != null && annotated ? Accessors.create(f, field) : new ReflectionAccessor(field);
+			FieldBlueprint blueprint = new FieldBlueprint(field, accessor, annotated);
+			fields.add(blueprint);
+			fieldMapping.put(field, blueprint);
+		}
+		// shadowed names resolve the way reflection resolves them rather than by iteration order
+		for (FieldBlueprint blueprint : fields) {
+			String name = blueprint.getField().getName();
+			if (!fieldNames.containsKey(name)) {
+				FieldBlueprint resolved = fieldMapping.get(reflection.findInstanceField(name));
+				fieldNames.put(name, resolved == null ? blueprint : resolved);
+			}
+		}
+		this.bindings = Collections.unmodifiableList(bindings);
+		this.fields = Collections.unmodifiableList(fields);
+		this.fieldMapping = fieldMapping;
+		this.fieldNames = fieldNames;
+	}
+
+	// fields are scanned unless a generated binder of the declaring class knows they carry no UI annotations
+	private static boolean isAnnotated(Field field) {
+		Collection<String> annotated = Accessors.getBinder(field.getDeclaringClass()).getFields();
+		return annotated == null || annotated.contains(field.getName());
+	}
+
+	private static void addBindings(List<Binding> bindings, IReflection reflection) {
+		for (MetaAnnotation<ProcessorReference> marked : reflection.getMetaAnnotations(ProcessorReference.class)) {
+			bindings.add(new Binding(reflection, marked.getAnnotation(), marked.getMetaAnnotation().value()));
+		}
+	}
+
+	public static TypeBlueprint of(Class<?> type) {
+		return blueprints.computeIfAbsent(type, TypeBlueprint::new);
+	}
+
+	public static void clear() {
+		blueprints.clear();
+	}
+
+	public Class<?> getType() {
+		return type;
+	}
+
+	public List<Binding> getBindings() {
+		return bindings;
+	}
+
+	public List<FieldBlueprint> getFields() {
+		return fields;
+	}
+
+	public FieldBlueprint getField(IFieldReflection field) {
+		FieldBlueprint result = fieldMapping.get(field);
+		return result == null ? new FieldBlueprint(field) : result;
+	}
+
+	public FieldBlueprint findField(String name) {
+		return fieldNames.get(name);
+	}
+}
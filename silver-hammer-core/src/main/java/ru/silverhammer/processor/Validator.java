@@ -33,4 +33,10 @@ import java.lang.annotation.Target;
 @Target(ElementType.METHOD)
 @Retention(RetentionPolicy.RUNTIME)
 @ProcessorReference(ValidatorProcessor.class)
-public @interface Validator {}
+public @interface Validator {
+
+	// names of the data fields whose controls trigger the validator, otherwise tracked through the UiModel control lookups
+	// names matching no control make the validator run on every change
+	String[] dependsOn() default {};
+
+}
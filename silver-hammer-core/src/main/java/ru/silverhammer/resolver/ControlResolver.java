@@ -28,9 +28,12 @@ package ru.silverhammer.resolver;
 import java.lang.annotation.Annotation;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
 import ru.silverhammer.control.IControl;
 import ru.silverhammer.decorator.IDecorator;
+import ru.silverhammer.model.IValidationScheduler;
+import ru.silverhammer.model.ImmediateValidationScheduler;
 
 public class ControlResolver implements IControlResolver {
 	
@@ -60,4 +63,14 @@ public class ControlResolver implements IControlResolver {
 			decoratorMapping.put(annotationClass, decoratorClass);
 		}
 	}
+
+	@Override
+	public IValidationScheduler createValidationScheduler() {
+		return new ImmediateValidationScheduler();
+	}
+
+	@Override
+	public Executor getUiExecutor() {
+		return Runnable::run;
+	}
 }
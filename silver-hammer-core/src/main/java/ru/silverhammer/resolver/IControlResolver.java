@@ -26,9 +26,11 @@
 package ru.silverhammer.resolver;
 
 import java.lang.annotation.Annotation;
+import java.util.concurrent.Executor;
 
 import ru.silverhammer.control.IControl;
 import ru.silverhammer.decorator.IDecorator;
+import ru.silverhammer.model.IValidationScheduler;
 
 public interface IControlResolver {
 
@@ -39,4 +41,8 @@ public interface IControlResolver {
 	void bindControl(Class<? extends Annotation> annotationClass, Class<? extends IControl<?, ?>> controlClass);
 
 	void bindDecorator(Class<? extends Annotation> annotationClass, Class<? extends IDecorator<?, ?>> decoratorClass);
+
+	IValidationScheduler createValidationScheduler();
+
+	Executor getUiExecutor();
 }
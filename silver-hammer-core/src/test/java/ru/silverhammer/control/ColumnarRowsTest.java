@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2020, Dmitriy Shchekotin
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package ru.silverhammer.control;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Date;
+
+import org.junit.Test;
+
+public class ColumnarRowsTest {
+
+	private static ColumnarRows rows(Object[]... rows) {
+		return new ColumnarRows(new Class<?>[] {int.class, String.class, Double.class}, Arrays.asList(rows));
+	}
+
+	@Test
+	public void testValuesKeepTheirTypes() {
+		ColumnarRows rows = new ColumnarRows(new Class<?>[] {int.class, long.class, float.class, short.class, byte.class, char.class, boolean.class, String.class});
+		Object[] row = {1, 2L, 3.5f, (short) 4, (byte) 5, 'c', true, "s"};
+		rows.add(row);
+		assertArrayEquals(row, rows.get(0));
+		assertEquals(Integer.class, rows.getColumnType(0));
+		assertEquals(Boolean.class, rows.getColumnType(6));
+		assertTrue(rows.isPrimitive(0));
+		assertTrue(rows.isPrimitive(2));
+		assertFalse(rows.isPrimitive(7));
+	}
+
+	@Test
+	public void testNullsInPrimitiveColumns() {
+		ColumnarRows rows = rows(new Object[] {1, null, null}, new Object[] {null, "b", 2.0});
+		assertArrayEquals(new Object[] {1, null, null}, rows.get(0));
+		assertArrayEquals(new Object[] {null, "b", 2.0}, rows.get(1));
+		assertNull(rows.getValue(1, 0));
+		assertTrue(rows.compare(1, 0, 0) < 0);
+		assertTrue(rows.compare(0, 1, 2) < 0);
+		assertEquals(0, rows.compare(0, 0, 0));
+	}
+
+	@Test
+	public void testInsertAndRemoveShiftRows() {
+		ColumnarRows rows = rows(new Object[] {1, "a", 1.0}, new Object[] {3, "c", null});
+		rows.add(1, new Object[] {2, "b", 2.0});
+		assertEquals(3, rows.size());
+		assertArrayEquals(new Object[] {2, "b", 2.0}, rows.get(1));
+		assertArrayEquals(new Object[] {3, "c", null}, rows.get(2));
+		rows.remove(0);
+		assertArrayEquals(new Object[] {2, "b", 2.0}, rows.get(0));
+		assertArrayEquals(new Object[] {3, "c", null}, rows.get(1));
+		rows.subList(0, 2).clear();
+		assertTrue(rows.isEmpty());
+		rows.add(new Object[] {4, "d", null});
+		assertArrayEquals(new Object[] {4, "d", null}, rows.get(0));
+	}
+
+	@Test
+	public void testGrowsBeyondCapacity() {
+		ColumnarRows rows = new ColumnarRows(new Class<?>[] {int.class}, 1);
+		for (int i = 0; i < 200; i++) {
+			rows.add(new Object[] {i % 3 == 0 ? null : i});
+		}
+		for (int i = 0; i < 200; i++) {
+			assertEquals(i % 3 == 0 ? null : i, rows.getValue(i, 0));
+		}
+	}
+
+	@Test
+	public void testMismatchedValueTurnsColumnIntoObjects() {
+		ColumnarRows rows = rows(new Object[] {1, "a", 1.0}, new Object[] {null, "b", 2.0});
+		rows.add(new Object[] {"x", "c", 3.0});
+		assertFalse(rows.isPrimitive(0));
+		assertArrayEquals(new Object[] {1, null, "x"}, new Object[] {rows.getValue(0, 0), rows.getValue(1, 0), rows.getValue(2, 0)});
+	}
+
+	@Test
+	public void testColumnTypeInferredFromFirstValue() {
+		ColumnarRows rows = new ColumnarRows(new Class<?>[] {null, null});
+		rows.add(new Object[] {null, null});
+		assertNull(rows.getColumnType(0));
+		Date date = new Date(0);
+		rows.add(new Object[] {7L, date});
+		assertEquals(Long.class, rows.getColumnType(0));
+		assertTrue(rows.isPrimitive(0));
+		assertArrayEquals(new Object[] {null, null}, rows.get(0));
+		assertArrayEquals(new Object[] {7L, date}, rows.get(1));
+	}
+
+	@Test
+	public void testLongerRowAddsColumns() {
+		ColumnarRows rows = new ColumnarRows(new Class<?>[] {int.class});
+		rows.add(new Object[] {1});
+		rows.add(new Object[] {2, "b"});
+		assertEquals(2, rows.getColumnCount());
+		assertArrayEquals(new Object[] {1, null}, rows.get(0));
+		assertArrayEquals(new Object[] {2, "b"}, rows.get(1));
+	}
+
+	@Test
+	public void testCopySharesUntilModified() {
+		ColumnarRows rows = rows(new Object[] {1, "a", 1.0}, new Object[] {2, "b", 2.0});
+		ColumnarRows copy = rows.copy();
+		copy.set(0, new Object[] {9, "z", 9.0});
+		rows.add(new Object[] {3, "c", 3.0});
+		assertArrayEquals(new Object[] {1, "a", 1.0}, rows.get(0));
+		assertEquals(3, rows.size());
+		assertArrayEquals(new Object[] {9, "z", 9.0}, copy.get(0));
+		assertEquals(2, copy.size());
+		rows.clear();
+		assertArrayEquals(new Object[] {2, "b", 2.0}, copy.get(1));
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testIndexOutOfRange() {
+		rows(new Object[] {1, "a", 1.0}).get(1);
+	}
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2020, Dmitriy Shchekotin
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package ru.silverhammer.control;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class PagedItemsTest {
+
+	private static final class CountingSource extends ListItemSource<Integer> {
+
+		private final List<Integer> loaded = new ArrayList<>();
+
+		private CountingSource(List<Integer> items) {
+			super(items);
+		}
+
+		@Override
+		public List<Integer> getRange(int from, int to) {
+			loaded.add(from);
+			return super.getRange(from, to);
+		}
+	}
+
+	private static List<Integer> numbers(int count) {
+		List<Integer> result = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			result.add(i);
+		}
+		return result;
+	}
+
+	@Test
+	public void testPagesLoadedOnDemand() {
+		CountingSource source = new CountingSource(numbers(100));
+		PagedItems<Integer> items = new PagedItems<>(source, 10, 4);
+		assertEquals(100, items.size());
+		assertTrue(source.loaded.isEmpty());
+		assertEquals(Integer.valueOf(55), items.get(55));
+		assertEquals(Integer.valueOf(59), items.get(59));
+		assertEquals(Integer.valueOf(99), items.get(99));
+		assertEquals(2, source.loaded.size());
+		assertEquals(Integer.valueOf(50), source.loaded.get(0));
+		assertEquals(Integer.valueOf(90), source.loaded.get(1));
+	}
+
+	@Test
+	public void testLeastRecentlyUsedPageDropped() {
+		CountingSource source = new CountingSource(numbers(100));
+		PagedItems<Integer> items = new PagedItems<>(source, 10, 2);
+		items.get(0);
+		items.get(10);
+		items.get(1);
+		items.get(20);
+		source.loaded.clear();
+		items.get(2);
+		assertTrue(source.loaded.isEmpty());
+		items.get(11);
+		assertEquals(1, source.loaded.size());
+	}
+
+	@Test
+	public void testLastPageIsPartial() {
+		PagedItems<Integer> items = new PagedItems<>(new ListItemSource<>(numbers(25)), 10, 4);
+		assertEquals(Integer.valueOf(24), items.get(24));
+		assertEquals(25, new ArrayList<>(items).size());
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testIndexOutOfRange() {
+		new PagedItems<>(new ListItemSource<>(numbers(10))).get(10);
+	}
+
+	@Test
+	public void testSearchDelegatedToSource() {
+		CountingSource source = new CountingSource(numbers(100));
+		PagedItems<Integer> items = new PagedItems<>(source, 10, 4);
+		assertEquals(42, items.indexOf(42));
+		assertEquals(-1, items.indexOf(100));
+		assertTrue(items.contains(7));
+		assertEquals(13, items.find("3", 4));
+		assertEquals(-1, items.find("x", 0));
+	}
+
+	@Test
+	public void testRefreshReloadsPages() {
+		List<Integer> list = numbers(20);
+		CountingSource source = new CountingSource(list);
+		PagedItems<Integer> items = new PagedItems<>(source, 10, 4);
+		items.get(0);
+		list.set(0, -1);
+		list.add(20);
+		items.refresh();
+		assertEquals(21, items.size());
+		assertEquals(Integer.valueOf(-1), items.get(0));
+		assertEquals(Integer.valueOf(20), items.get(20));
+	}
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2020, Dmitriy Shchekotin
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package ru.silverhammer.converter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Date;
+import java.util.Locale;
+
+import org.junit.Test;
+
+public class DateToStringConverterTest {
+
+	@DateToString(format = "dd/MM/yyyy HH:mm:ss")
+	private Date dateTime;
+
+	@DateToString(format = "HH:mm")
+	private Date time;
+
+	@DateToString(format = "dd/MM/yy")
+	private Date shortYear;
+
+	@DateToString(format = "hh:mm:ss.SSS a u", locale = "en")
+	private Date legacy;
+
+	@DateToString(format = "yyyy-MM-dd", type = LocalDate.class)
+	private LocalDate localDate;
+
+	@DateToString(format = "yyyy-MM-dd HH:mm", type = LocalDateTime.class)
+	private LocalDateTime localDateTime;
+
+	@DateToString(format = "yyyy-MM-dd HH:mm XXX", type = ZonedDateTime.class)
+	private ZonedDateTime zoned;
+
+	@DateToString(format = "yyyy-MM-dd HH:mm XXX", type = Instant.class)
+	private Instant instant;
+
+	@DateToString(format = "dd MMMM yyyy", type = LocalDate.class, locale = "en")
+	private LocalDate english;
+
+	private final DateToStringConverter converter = new DateToStringConverter();
+
+	private DateToString annotation(String field) {
+		try {
+			return getClass().getDeclaredField(field).getAnnotation(DateToString.class);
+		} catch (NoSuchFieldException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private Object parse(String field, String text) {
+		return converter.convertBackward(text, annotation(field));
+	}
+
+	private Date parseLegacy(String pattern, String text) throws ParseException {
+		return new SimpleDateFormat(pattern).parse(text);
+	}
+
+	@Test
+	public void testDateRoundTrip() throws ParseException {
+		Date date = parseLegacy("dd/MM/yyyy HH:mm:ss", "05/03/2020 13:45:10");
+		assertEquals("05/03/2020 13:45:10", converter.convertForward(date, annotation("dateTime")));
+		assertEquals(date, parse("dateTime", "05/03/2020 13:45:10"));
+		assertEquals(date, parse("dateTime", "5/3/2020 13:45:10"));
+	}
+
+	@Test
+	public void testIncompleteText() {
+		assertNull(parse("dateTime", ""));
+		assertNull(parse("dateTime", "05/0"));
+		assertNull(parse("dateTime", "05/03/2020"));
+		assertNull(parse("dateTime", "05/03/2020 13:45:10x"));
+		assertNull(parse("dateTime", "30/02/2020 13:45:10"));
+		assertNull(parse("dateTime", "05/13/2020 13:45:10"));
+		assertNull(parse("dateTime", "05/03/2020 25:45:10"));
+		assertEquals("", converter.convertForward(null, annotation("dateTime")));
+	}
+
+	@Test
+	public void testTimeOnly() throws ParseException {
+		assertEquals(parseLegacy("HH:mm", "13:45"), parse("time", "13:45"));
+	}
+
+	@Test
+	public void testTwoDigitYear() throws ParseException {
+		LocalDate start = LocalDate.now().minusYears(80);
+		DateTimeFormatter fmt = DateTimeFormatter.ofPattern("dd/MM/");
+		for (LocalDate date : new LocalDate[] {start.minusDays(1), start, start.plusDays(1), start.plusYears(50), start.plusYears(99)}) {
+			String text = fmt.format(date) + String.format("%02d", date.getYear() % 100);
+			assertEquals(text, parseLegacy("dd/MM/yy", text), parse("shortYear", text));
+		}
+		assertEquals(parseLegacy("dd/MM/yy", "01/01/2046"), parse("shortYear", "01/01/2046"));
+		assertEquals(parseLegacy("dd/MM/yy", "29/02/00"), parse("shortYear", "29/02/00"));
+		Date date = parseLegacy("dd/MM/yyyy", "05/03/2020");
+		assertEquals("05/03/20", converter.convertForward(date, annotation("shortYear")));
+	}
+
+	@Test
+	public void testLegacyLetters() throws ParseException {
+		SimpleDateFormat legacy = new SimpleDateFormat("hh:mm:ss.SSS a u", Locale.ENGLISH);
+		Date date = new SimpleDateFormat("dd/MM/yyyy HH:mm:ss.SSS").parse("05/03/2020 13:45:10.042");
+		String text = legacy.format(date);
+		assertEquals(text, converter.convertForward(date, annotation("legacy")));
+		assertEquals(legacy.parse(text), parse("legacy", text));
+	}
+
+	@Test
+	public void testJavaTimeTypes() {
+		assertEquals(LocalDate.of(2020, 3, 5), parse("localDate", "2020-03-05"));
+		assertEquals("2020-03-05", converter.convertForward(LocalDate.of(2020, 3, 5), annotation("localDate")));
+		assertEquals(LocalDateTime.of(2020, 3, 5, 13, 45), parse("localDateTime", "2020-03-05 13:45"));
+		ZonedDateTime zoned = ZonedDateTime.of(2020, 3, 5, 13, 45, 0, 0, ZoneOffset.ofHours(3));
+		assertEquals(zoned, parse("zoned", "2020-03-05 13:45 +03:00"));
+		assertEquals("2020-03-05 13:45 +03:00", converter.convertForward(zoned, annotation("zoned")));
+		assertEquals(zoned.toInstant(), parse("instant", "2020-03-05 13:45 +03:00"));
+	}
+
+	@Test
+	public void testLocale() {
+		assertEquals("05 March 2020", converter.convertForward(LocalDate.of(2020, 3, 5), annotation("english")));
+		assertEquals(LocalDate.of(2020, 3, 5), parse("english", "05 march 2020"));
+	}
+}
@@ -49,6 +49,7 @@ import ru.silverhammer.resolver.IControlResolver;
 import ru.silverhammer.swing.SwingUiBuilder;
 
 import java.io.File;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.LinkedHashMap;
 import java.util.Map;
@@ -84,17 +85,18 @@ public class Environment {
 	@Tree(visibleRows = 10)
 	@GroupId("env")
 	@Caption(value = "Current directory:", location = Location.Top)
-	@FileTreeItems(".")
+	@FileTreeItems(value = ".", lazy = true)
 	private File root;
 
 	@SuppressWarnings("unused")
 	@Initializer
 	private void initializeTable(UiModel metadata) {
 		ICollectionControl<Object, ?, Object[]> table = metadata.findControl(this, "properties");
-		table.getCollection().add(new Object[] {"maven.test.skip", true});
-		table.getCollection().add(new Object[] {"JDK version", "1.8.0"});
-		table.getCollection().add(new Object[] {"timeout.interval", 100});
-		table.getCollection().add(new Object[] {"Current date", new Date()});
+		table.addAll(Arrays.asList(
+				new Object[] {"maven.test.skip", true},
+				new Object[] {"JDK version", "1.8.0"},
+				new Object[] {"timeout.interval", 100},
+				new Object[] {"Current date", new Date()}));
 	}
 
 	@SuppressWarnings("unused")
@@ -31,12 +31,14 @@ import ru.silverhammer.demo.settings.Environment;
 import ru.silverhammer.demo.settings.Settings;
 import ru.silverhammer.demo.user.User;
 import ru.silverhammer.model.UiModel;
+import ru.silverhammer.initializer.FontFamilyItemsInitializer;
 import ru.silverhammer.swing.SwingControlResolver;
 import ru.silverhammer.swing.SwingUiBuilder;
 
 public class Program {
 
 	public static void main(String... args) {
+		FontFamilyItemsInitializer.preload();
 		Environment env = new Environment();
 		Settings settings = new Settings();
 		User user = new User();
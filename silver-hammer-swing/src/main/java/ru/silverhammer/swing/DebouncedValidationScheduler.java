@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2020, Dmitriy Shchekotin
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package ru.silverhammer.swing;
+
+import javax.swing.Timer;
+
+import ru.silverhammer.control.IControl;
+import ru.silverhammer.model.IValidationScheduler;
+import ru.silverhammer.swing.control.BaseTextControl;
+
+public class DebouncedValidationScheduler implements IValidationScheduler {
+
+	public static final int DEFAULT_DELAY = 300;
+
+	private final Timer timer;
+	private Runnable validation;
+
+	public DebouncedValidationScheduler() {
+		this(DEFAULT_DELAY);
+	}
+
+	public DebouncedValidationScheduler(int delay) {
+		timer = new Timer(delay, e -> run());
+		timer.setRepeats(false);
+	}
+
+	@Override
+	public void schedule(IControl<?, ?> control, Runnable validation) {
+		this.validation = validation;
+		if (isDebounced(control)) {
+			timer.restart();
+		} else {
+			timer.stop();
+			run();
+		}
+	}
+
+	@Override
+	public void cancel() {
+		timer.stop();
+		validation = null;
+	}
+
+	protected boolean isDebounced(IControl<?, ?> control) {
+		return control instanceof BaseTextControl;
+	}
+
+	private void run() {
+		Runnable r = validation;
+		validation = null;
+		if (r != null) {
+			r.run();
+		}
+	}
+}
@@ -25,9 +25,14 @@
  */
 package ru.silverhammer.swing;
 
+import java.util.concurrent.Executor;
+
+import javax.swing.SwingUtilities;
+
 import ru.silverhammer.control.*;
 import ru.silverhammer.decorator.ButtonBar;
 import ru.silverhammer.decorator.FileChooser;
+import ru.silverhammer.model.IValidationScheduler;
 import ru.silverhammer.resolver.ControlResolver;
 import ru.silverhammer.swing.control.*;
 import ru.silverhammer.swing.decorator.ButtonBarDecorator;
@@ -55,4 +60,14 @@ public class SwingControlResolver extends ControlResolver {
 		bindDecorator(ButtonBar.class, ButtonBarDecorator.class);
 		bindDecorator(FileChooser.class, FileChooserDecorator.class);
 	}
+
+	@Override
+	public IValidationScheduler createValidationScheduler() {
+		return new DebouncedValidationScheduler();
+	}
+
+	@Override
+	public Executor getUiExecutor() {
+		return SwingUtilities::invokeLater;
+	}
 }
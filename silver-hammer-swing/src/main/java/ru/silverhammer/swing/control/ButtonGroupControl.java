@@ -101,6 +101,12 @@ public abstract class ButtonGroupControl<A extends Annotation> extends Control<O
         };
     }
 
+    @Override
+    public void removeRange(int from, int to) {
+        data.subList(from, to).clear();
+        rebuild();
+    }
+
     @Override
     public List<Object> getSelection() {
         return new ArrayList<Object>() {
@@ -162,7 +168,7 @@ public abstract class ButtonGroupControl<A extends Annotation> extends Control<O
     }
 
     @Override
-    public void setValidationMessage(String message) {
+    protected void showValidationMessage(String message) {
         for (AbstractButton c : buttons.values()) {
             setValidationMessage(c, message);
         }
@@ -108,8 +108,8 @@ public class ColorChooserControl extends Control<Integer, ColorChooser, JPanel>
 	}
 
 	@Override
-	public void setValidationMessage(String message) {
-		super.setValidationMessage(message);
+	protected void showValidationMessage(String message) {
+		super.showValidationMessage(message);
 		setValidationMessage(red, message);
 		setValidationMessage(green, message);
 		setValidationMessage(blue, message);
@@ -28,11 +28,15 @@ package ru.silverhammer.swing.control;
 import java.awt.event.KeyEvent;
 import java.awt.event.KeyListener;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
+import javax.accessibility.Accessible;
 import javax.swing.JComboBox;
+import javax.swing.plaf.basic.ComboPopup;
 
 import ru.silverhammer.control.ICollectionControl;
+import ru.silverhammer.control.IItemSource;
 import ru.silverhammer.control.ComboBox;
 
 // TODO: disable internal first key navigation
@@ -46,13 +50,11 @@ public class ComboBoxControl extends Control<Object, ComboBox, JComboBox<Object>
 		getComponent().addItemListener(l -> fireValueChanged());
 		getComponent().addKeyListener(new SearchAdapter() {
 			@Override
-			protected void search(String search) {
-				for (int i = 0; i < getComponent().getItemCount(); i++) {
-					Object item = getComponent().getItemAt(i);
-					if (item != null && item.toString().contains(search)) {
-						getComponent().setSelectedIndex(i);
-						break;
-					}
+			protected void search(String search, boolean next) {
+				int current = getComponent().getSelectedIndex();
+				int i = getModel().find(search, next ? current + 1 : Math.max(current, 0));
+				if (i != -1) {
+					getComponent().setSelectedIndex(i);
 				}
 			}
 		});
@@ -76,16 +78,50 @@ public class ComboBoxControl extends Control<Object, ComboBox, JComboBox<Object>
 
 	@Override
 	protected JComboBox<Object> createComponent() {
-		return new JComboBox<>();
+		// selection by index goes through the model to avoid linear lookups of JComboBox
+		return new JComboBox<Object>(new ItemListModel()) {
+			private static final long serialVersionUID = 8431262960410571153L;
+
+			@Override
+			public int getSelectedIndex() {
+				return ((ItemListModel) getModel()).getSelectedIndex();
+			}
+
+			@Override
+			public void setSelectedIndex(int index) {
+				if (index < -1 || index >= getModel().getSize()) {
+					throw new IllegalArgumentException("setSelectedIndex: " + index + " out of bounds");
+				}
+				((ItemListModel) getModel()).setSelectedIndex(index);
+				fireActionEvent();
+			}
+
+			@Override
+			public void updateUI() {
+				super.updateUI();
+				updatePopupPrototype(this);
+			}
+		};
+	}
+
+	private static void updatePopupPrototype(JComboBox<Object> comboBox) {
+		Accessible popup = comboBox.getUI().getAccessibleChild(comboBox, 0);
+		if (popup instanceof ComboPopup) {
+			((ComboPopup) popup).getList().setPrototypeCellValue(comboBox.getPrototypeDisplayValue());
+		}
+	}
+
+	protected ItemListModel getModel() {
+		return (ItemListModel) getComponent().getModel();
 	}
 
 	@Override
-	public void setValidationMessage(String message) {
+	protected void showValidationMessage(String message) {
 		if (isEditable()) {
 			getComponent().getEditor().getEditorComponent().setBackground(message == null ? getNormalBackground() : getInvalidBackground());
 			getComponent().setToolTipText(message);
 		} else {
-			super.setValidationMessage(message);
+			super.showValidationMessage(message);
 		}
 	}
 
@@ -103,15 +139,7 @@ public class ComboBoxControl extends Control<Object, ComboBox, JComboBox<Object>
 		if (isEditable()) {
 			getComponent().getEditor().setItem(value);
 		} else {
-			getComponent().setSelectedIndex(-1);
-			if (value != null) {
-				for (int i = 0; i < getComponent().getItemCount(); i++) {
-					if (value.equals(getComponent().getItemAt(i))) {
-						getComponent().setSelectedIndex(i);
-						break;
-					}
-				}
-			}
+			getComponent().setSelectedIndex(value == null ? -1 : getModel().indexOf(value));
 		}
 	}
 
@@ -130,7 +158,7 @@ public class ComboBoxControl extends Control<Object, ComboBox, JComboBox<Object>
 			@Override
 			public boolean add(Object item) {
 				if (item != null) {
-					getComponent().addItem(item);
+					getModel().addElement(item);
 					return true;
 				}
 				return false;
@@ -138,27 +166,66 @@ public class ComboBoxControl extends Control<Object, ComboBox, JComboBox<Object>
 
 			@Override
 			public Object remove(int i) {
-				getComponent().removeItemAt(i);
+				getModel().remove(i);
 				return null;
 			}
 
 			@Override
 			public int size() {
-				return getComponent().getItemCount();
+				return getModel().getSize();
 			}
 
 			@Override
 			public Object get(int i) {
-				return getComponent().getItemAt(i);
+				return getModel().get(i);
 			}
 
 			@Override
 			public void clear() {
-				getComponent().removeAllItems();
+				getModel().removeAllElements();
 			}
 		};
 	}
 
+	// list data events are merged as well as value changes
+	@Override
+	public void batch(Runnable changes) {
+		getModel().beginBatch();
+		super.batch(() -> {
+			try {
+				changes.run();
+			} finally {
+				getModel().endBatch();
+			}
+		});
+	}
+
+	// adding items keeps the selection
+	@Override
+	public void addAll(Collection<?> items) {
+		getModel().addElements(ListControl.nonNull(items));
+	}
+
+	@Override
+	public void removeRange(int from, int to) {
+		getModel().removeRange(from, to);
+		fireValueChanged();
+	}
+
+	@Override
+	public void replaceAll(Collection<?> items) {
+		getModel().setElements(ListControl.nonNull(items));
+		fireValueChanged();
+	}
+
+	@Override
+	public void setItemSource(IItemSource<Object> source) {
+		getModel().setSource(source);
+		getComponent().setPrototypeDisplayValue(getModel().getPrototype());
+		updatePopupPrototype(getComponent());
+		fireValueChanged();
+	}
+
 	@Override
 	public void init(ComboBox annotation) {
 		setEditable(annotation.editable());
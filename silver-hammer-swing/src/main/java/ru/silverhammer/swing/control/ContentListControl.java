@@ -36,21 +36,12 @@ public class ContentListControl extends ListControl<ContentList> {
 
 	@Override
 	public Object getValue() {
-		Collection<Object> value = new ArrayList<>();
-		for (int i = 0; i < getModel().getSize(); i++) {
-			value.add(getModel().getElementAt(i));
-		}
-		return value;
+		return new ArrayList<>(getModel().getElements());
 	}
 
 	@Override
 	public void setValue(Object value) {
-		getModel().removeAllElements();
-		if (value instanceof Collection) {
-			for (Object o : (Collection<?>) value) {
-				getModel().addElement(o);
-			}
-		}
+		getModel().setElements(value instanceof Collection ? new ArrayList<>((Collection<?>) value) : new ArrayList<>());
 		fireValueChanged();
 	}
 
@@ -25,11 +25,7 @@
  */
 package ru.silverhammer.swing.control;
 
-import ru.reflexio.IInstanceFieldReflection;
-import ru.reflexio.TypeReflection;
 import ru.sanatio.conversion.IStringConverter;
-import ru.silverhammer.model.UiModel;
-import ru.silverhammer.processor.Caption;
 import ru.silverhammer.control.ContentTable;
 
 import java.util.Collection;
@@ -39,25 +35,20 @@ public class ContentTableControl extends TableControl<ContentTable> {
 	private static final long serialVersionUID = -3692427066762483919L;
 
 	private final IStringConverter converter;
-	private final UiModel model;
 
-	public ContentTableControl(IStringConverter converter, UiModel model) {
+	public ContentTableControl(IStringConverter converter) {
 		this.converter = converter;
-		this.model = model;
 	}
 	
 	@Override
 	public Object getValue() {
-		return data.clone();
+		return copyRows();
 	}
 
 	@SuppressWarnings("unchecked")
 	@Override
 	public void setValue(Object value) {
-		data.clear();
-		if (value instanceof Collection) {
-			data.addAll((Collection<Object[]>) value);
-		}
+		setRows(value instanceof Collection ? (Collection<Object[]>) value : null);
 		getModel().fireTableStructureChanged();
 		fireValueChanged();
 	}
@@ -68,17 +59,7 @@ public class ContentTableControl extends TableControl<ContentTable> {
 			setVisibleRowCount(annotation.visibleRows());
 		}
 		setSelectionType(annotation.multiSelection());
-		if (annotation.annotationCaptions() != Void.class) {
-			for (IInstanceFieldReflection fr : new TypeReflection<>(annotation.annotationCaptions()).getInstanceFields()) {
-				if (model.hasControlAnnotation(fr)) {
-					Caption c = fr.getAnnotation(Caption.class);
-					getCaptions().add(c == null ? fr.getName() : converter.getString(c.value()));
-				}
-			}
-		} else if (annotation.captions().length > 0) {
-			for (String caption : annotation.captions()) {
-				getCaptions().add(converter.getString(caption));
-			}
-		}
+		initTable(converter, annotation.annotationCaptions(), annotation.captions(),
+				annotation.sortable(), annotation.filterable(), annotation.columnar());
 	}
 }
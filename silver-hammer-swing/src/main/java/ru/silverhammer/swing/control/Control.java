@@ -31,6 +31,7 @@ import java.awt.event.KeyEvent;
 import java.lang.annotation.Annotation;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Objects;
 
 import javax.swing.*;
 
@@ -43,21 +44,32 @@ public abstract class Control<Value, A extends Annotation, C extends JComponent>
 	protected abstract class SearchAdapter extends KeyAdapter {
 		
 		private long accessTime;
+		private String typed = "";
 		private String search = "";
 		
 		@Override
 		public final void keyTyped(KeyEvent e) {
 			char ch = e.getKeyChar();
-			if (accessTime + 1000 < System.currentTimeMillis()) {
-				search = "";
+			long time = System.currentTimeMillis();
+			boolean next;
+			if (accessTime + 1000 < time) {
+				typed = String.valueOf(ch);
+				search = typed;
+				next = true;
+			} else {
+				// typed keys always extend the text, while only one key is repeated the search stays on it like JList does
+				typed += ch;
+				next = search.length() == 1 && search.charAt(0) == ch;
+				if (!next) {
+					search = typed;
+				}
 			}
-			accessTime = System.currentTimeMillis();
-			search += ch;
-
-			search(search);
+			accessTime = time;
+			search(search, next);
 		}
-		
-		protected abstract void search(String search);
+
+		// next means the search starts after the current item, repeating a single character cycles through matches
+		protected abstract void search(String search, boolean next);
 	}
 
 	private static final long serialVersionUID = 6368631261236160508L;
@@ -68,6 +80,11 @@ public abstract class Control<Value, A extends Annotation, C extends JComponent>
 
 	private Color normalBackground;
 	private Color invalidBackground = Color.RED;
+	private boolean validating;
+	private boolean loading;
+	private int batchDepth;
+	private boolean batchChanged;
+	private String validationMessage;
 
 	protected Control(boolean scrollable) {
 		this.component = createComponent();
@@ -96,6 +113,13 @@ public abstract class Control<Value, A extends Annotation, C extends JComponent>
 
 	@Override
 	public void setValidationMessage(String message) {
+		if (!Objects.equals(validationMessage, message)) {
+			validationMessage = message;
+			showValidationMessage(message);
+		}
+	}
+
+	protected void showValidationMessage(String message) {
 		setValidationMessage(component, message);
 	}
 
@@ -106,12 +130,38 @@ public abstract class Control<Value, A extends Annotation, C extends JComponent>
 
 	@Override
 	public String getValidationMessage() {
-		return component.getToolTipText();
+		return validationMessage;
 	}
 
 	@Override
 	public boolean isControlValid() {
-		return getValidationMessage() == null;
+		return validationMessage == null;
+	}
+
+	@Override
+	public boolean isValidating() {
+		return validating;
+	}
+
+	@Override
+	public void setValidating(boolean validating) {
+		this.validating = validating;
+		updateCursor();
+	}
+
+	@Override
+	public boolean isLoading() {
+		return loading;
+	}
+
+	@Override
+	public void setLoading(boolean loading) {
+		this.loading = loading;
+		updateCursor();
+	}
+
+	private void updateCursor() {
+		setCursor(validating || loading ? Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR) : null);
 	}
 
 
@@ -152,7 +202,23 @@ public abstract class Control<Value, A extends Annotation, C extends JComponent>
 		listeners.remove(listener);
 	}
 	
+	public void batch(Runnable changes) {
+		batchDepth++;
+		try {
+			changes.run();
+		} finally {
+			if (--batchDepth == 0 && batchChanged) {
+				batchChanged = false;
+				fireValueChanged();
+			}
+		}
+	}
+
 	protected void fireValueChanged() {
+		if (batchDepth > 0) {
+			batchChanged = true;
+			return;
+		}
 		for (IValueListener l : listeners) {
 			l.changed(this);
 		}
@@ -0,0 +1,243 @@
+/*
+ * Copyright (c) 2020, Dmitriy Shchekotin
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package ru.silverhammer.swing.control;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+
+import javax.swing.AbstractListModel;
+import javax.swing.ComboBoxModel;
+
+import ru.silverhammer.control.IItemSource;
+import ru.silverhammer.control.PagedItems;
+
+// list and combo box model holding either plain items or pages of an item source
+class ItemListModel extends AbstractListModel<Object> implements ComboBoxModel<Object> {
+
+	private static final long serialVersionUID = -6349826617532718374L;
+	private static final int UNKNOWN = -2;
+
+	private List<Object> items = new ArrayList<>();
+	private Object selectedItem;
+	private int selectedIndex = -1;
+	private final SearchIndex searchIndex = new SearchIndex(this::getSize, i -> new String[] {toString(items.get(i))});
+	private final RowEvents events = new RowEvents(new RowEvents.Sink() {
+		@Override
+		public void rowsChanged(boolean inserted, int first, int last) {
+			if (inserted) {
+				ItemListModel.super.fireIntervalAdded(ItemListModel.this, first, last);
+			} else {
+				ItemListModel.super.fireIntervalRemoved(ItemListModel.this, first, last);
+			}
+		}
+
+		@Override
+		public void dataChanged() {
+			ItemListModel.super.fireContentsChanged(ItemListModel.this, -1, -1);
+		}
+	});
+
+	@Override
+	public int getSize() {
+		return items.size();
+	}
+
+	@Override
+	public Object getElementAt(int index) {
+		return items.get(index);
+	}
+
+	public Object get(int index) {
+		return items.get(index);
+	}
+
+	public List<Object> getElements() {
+		return items;
+	}
+
+	public boolean isPaged() {
+		return items instanceof PagedItems;
+	}
+
+	public int indexOf(Object item) {
+		return items.indexOf(item);
+	}
+
+	// first matching item at or after from, wrapping around
+	public int find(String search, int from) {
+		if (isPaged()) {
+			PagedItems<Object> paged = (PagedItems<Object>) items;
+			int result = paged.find(search, from);
+			return result == -1 && from > 0 ? paged.find(search, 0) : result;
+		}
+		return searchIndex.find(search, from >= items.size() ? 0 : from);
+	}
+
+	private static String toString(Object item) {
+		return item == null ? null : item.toString();
+	}
+
+	public void addElement(Object item) {
+		int index = mutableItems().size();
+		items.add(item);
+		searchIndex.rowsAdded(index, index);
+		fireIntervalAdded(this, index, index);
+	}
+
+	public void addElements(Collection<?> elements) {
+		if (!elements.isEmpty()) {
+			int index = mutableItems().size();
+			items.addAll(elements);
+			searchIndex.rowsAdded(index, items.size() - 1);
+			fireIntervalAdded(this, index, items.size() - 1);
+		}
+	}
+
+	// a removed selection moves to the previous item, or to the next one when the range starts the list
+	public void removeRange(int from, int to) {
+		if (from < to) {
+			int selected = getSelectedIndex();
+			mutableItems().subList(from, to).clear();
+			selectedIndex = selected < to ? selected : selected - (to - from);
+			searchIndex.invalidate();
+			fireIntervalRemoved(this, from, to - 1);
+			if (selected >= from && selected < to) {
+				int index = from > 0 ? from - 1 : from < items.size() ? from : -1;
+				select(index == -1 ? null : items.get(index), index);
+			}
+		}
+	}
+
+	public void remove(int index) {
+		removeRange(index, index + 1);
+	}
+
+	public void removeAllElements() {
+		selectedItem = null;
+		setElements(new ArrayList<>());
+	}
+
+	@SuppressWarnings("unchecked")
+	public void setSource(IItemSource<?> source) {
+		setElements(new PagedItems<>((IItemSource<Object>) source));
+	}
+
+	public void setElements(List<Object> elements) {
+		int oldSize = items.size();
+		items = elements;
+		selectedIndex = UNKNOWN;
+		searchIndex.invalidate();
+		if (oldSize > 0) {
+			fireIntervalRemoved(this, 0, oldSize - 1);
+		}
+		if (!items.isEmpty()) {
+			fireIntervalAdded(this, 0, items.size() - 1);
+		}
+		if (selectedItem != null && getSelectedIndex() == -1) {
+			select(null, -1);
+		}
+	}
+
+	// widest item of the first page, used instead of measuring every item
+	public Object getPrototype() {
+		Object result = null;
+		int length = -1;
+		for (int i = 0; i < Math.min(items.size(), IItemSource.PAGE_SIZE); i++) {
+			Object item = items.get(i);
+			int l = item == null ? 0 : item.toString().length();
+			if (l > length) {
+				result = item;
+				length = l;
+			}
+		}
+		return result;
+	}
+
+	// list data events until endBatch are merged
+	public void beginBatch() {
+		events.begin();
+	}
+
+	public void endBatch() {
+		events.end();
+	}
+
+	@Override
+	protected void fireIntervalAdded(Object source, int index0, int index1) {
+		events.inserted(Math.min(index0, index1), Math.max(index0, index1));
+	}
+
+	@Override
+	protected void fireIntervalRemoved(Object source, int index0, int index1) {
+		events.removed(Math.min(index0, index1), Math.max(index0, index1));
+	}
+
+	@Override
+	protected void fireContentsChanged(Object source, int index0, int index1) {
+		events.flush();
+		super.fireContentsChanged(source, index0, index1);
+	}
+
+	private List<Object> mutableItems() {
+		if (isPaged()) {
+			items = new ArrayList<>(items);
+		}
+		return items;
+	}
+
+	@Override
+	public Object getSelectedItem() {
+		return selectedItem;
+	}
+
+	@Override
+	public void setSelectedItem(Object item) {
+		select(item, UNKNOWN);
+	}
+
+	public int getSelectedIndex() {
+		if (selectedIndex == UNKNOWN) {
+			selectedIndex = selectedItem == null ? -1 : indexOf(selectedItem);
+		}
+		return selectedIndex;
+	}
+
+	public void setSelectedIndex(int index) {
+		select(index == -1 ? null : items.get(index), index);
+	}
+
+	private void select(Object item, int index) {
+		if (!Objects.equals(selectedItem, item)) {
+			selectedItem = item;
+			selectedIndex = index;
+			fireContentsChanged(this, -1, -1);
+		} else if (index != UNKNOWN) {
+			selectedIndex = index;
+		}
+	}
+}
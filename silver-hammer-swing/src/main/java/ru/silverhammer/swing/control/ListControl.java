@@ -26,6 +26,7 @@
 package ru.silverhammer.swing.control;
 
 import ru.silverhammer.control.ICollectionControl;
+import ru.silverhammer.control.IItemSource;
 import ru.silverhammer.control.ISelectionControl;
 
 import javax.swing.*;
@@ -45,20 +46,19 @@ public abstract class ListControl<A extends Annotation> extends Control<Object,
         getComponent().getSelectionModel().addListSelectionListener(e -> fireValueChanged());
         getComponent().addKeyListener(new SearchAdapter() {
             @Override
-            protected void search(String search) {
-                for (int i = 0; i < getModel().getSize(); i++) {
-                    Object item = getModel().getElementAt(i);
-                    if (item != null && item.toString().contains(search)) {
-                        getComponent().setSelectedIndex(i);
-                        break;
-                    }
+            protected void search(String search, boolean next) {
+                int current = getComponent().getLeadSelectionIndex();
+                int i = getModel().find(search, next ? current + 1 : Math.max(current, 0));
+                if (i != -1) {
+                    getComponent().setSelectedIndex(i);
+                    getComponent().ensureIndexIsVisible(i);
                 }
             }
         });
     }
 
-    protected DefaultListModel<Object> getModel() {
-        return (DefaultListModel<Object>) getComponent().getModel();
+    protected ItemListModel getModel() {
+        return (ItemListModel) getComponent().getModel();
     }
 
     public int getVisibleRowCount() {
@@ -89,7 +89,7 @@ public abstract class ListControl<A extends Annotation> extends Control<Object,
             public boolean add(Object item) {
                 if (item != null) {
                     getModel().addElement(item);
-                    fireValueChanged();
+                    itemsAdded();
                     return true;
                 }
                 return false;
@@ -120,18 +120,68 @@ public abstract class ListControl<A extends Annotation> extends Control<Object,
         };
     }
 
+    // list data events are merged as well as value changes
+    @Override
+    public void batch(Runnable changes) {
+        getModel().beginBatch();
+        super.batch(() -> {
+            try {
+                changes.run();
+            } finally {
+                getModel().endBatch();
+            }
+        });
+    }
+
+    @Override
+    public void addAll(Collection<?> items) {
+        getModel().addElements(nonNull(items));
+        itemsAdded();
+    }
+
+    // the value of a list showing its items changes with them, a selection stays as it is
+    protected void itemsAdded() {
+        fireValueChanged();
+    }
+
+    @Override
+    public void removeRange(int from, int to) {
+        getModel().removeRange(from, to);
+        fireValueChanged();
+    }
+
+    @Override
+    public void replaceAll(Collection<?> items) {
+        getModel().setElements(nonNull(items));
+        fireValueChanged();
+    }
+
+    static List<Object> nonNull(Collection<?> items) {
+        List<Object> result = new ArrayList<>(items.size());
+        for (Object item : items) {
+            if (item != null) {
+                result.add(item);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void setItemSource(IItemSource<Object> source) {
+        getModel().setSource(source);
+        getComponent().setPrototypeCellValue(getModel().getPrototype());
+        fireValueChanged();
+    }
+
     @Override
     public List<Object> getSelection() {
         return new ArrayList<Object>() {
             @Override
             public boolean add(Object item) {
-                int count = getModel().getSize();
-                for (int i = 0; i < count; i++) {
-                    Object val = getModel().get(i);
-                    if (Objects.equals(item, val)) {
-                        getComponent().setSelectionInterval(i, i);
-                        return true;
-                    }
+                int i = getModel().indexOf(item);
+                if (i != -1) {
+                    getComponent().setSelectionInterval(i, i);
+                    return true;
                 }
                 return false;
             }
@@ -171,7 +221,7 @@ public abstract class ListControl<A extends Annotation> extends Control<Object,
 
     @Override
     protected JList<Object> createComponent() {
-        return new JList<>(new DefaultListModel<>());
+        return new JList<>(new ItemListModel());
     }
 
 }
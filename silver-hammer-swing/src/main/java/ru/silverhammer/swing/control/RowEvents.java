@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2020, Dmitriy Shchekotin
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package ru.silverhammer.swing.control;
+
+// merges row insertions and removals made inside a batch into as few model events as possible,
+// adjacent changes of the same kind become one event and a whole data change replaces all of them
+class RowEvents {
+
+	interface Sink {
+
+		void rowsChanged(boolean inserted, int first, int last);
+
+		void dataChanged();
+	}
+
+	private final Sink sink;
+
+	private int depth;
+	private boolean inserted;
+	private int first = -1;
+	private int last;
+	private boolean changed;
+
+	RowEvents(Sink sink) {
+		this.sink = sink;
+	}
+
+	boolean isBatching() {
+		return depth > 0;
+	}
+
+	void begin() {
+		depth++;
+	}
+
+	void end() {
+		if (--depth == 0) {
+			flush();
+		}
+	}
+
+	void inserted(int from, int to) {
+		if (depth == 0) {
+			sink.rowsChanged(true, from, to);
+		} else if (!changed) {
+			// rows inserted into or next to the pending block extend it
+			if (first != -1 && inserted && from >= first && from <= last + 1) {
+				last += to - from + 1;
+			} else {
+				flush();
+				set(true, from, to);
+			}
+		}
+	}
+
+	void removed(int from, int to) {
+		if (depth == 0) {
+			sink.rowsChanged(false, from, to);
+		} else if (!changed) {
+			// rows around the gap left by the pending removal extend it, indices are before that removal
+			if (first != -1 && !inserted && from <= first && first <= to + 1) {
+				last = to + last - first + 1;
+				first = from;
+			} else {
+				flush();
+				set(false, from, to);
+			}
+		}
+	}
+
+	void dataChanged() {
+		if (depth == 0) {
+			sink.dataChanged();
+		} else {
+			first = -1;
+			changed = true;
+		}
+	}
+
+	// fires the pending event, other events must not overtake it
+	void flush() {
+		if (changed) {
+			changed = false;
+			sink.dataChanged();
+		} else if (first != -1) {
+			int from = first;
+			first = -1;
+			sink.rowsChanged(inserted, from, last);
+		}
+	}
+
+	private void set(boolean inserted, int from, int to) {
+		this.inserted = inserted;
+		this.first = from;
+		this.last = to;
+	}
+}
@@ -0,0 +1,292 @@
+/*
+ * Copyright (c) 2020, Dmitriy Shchekotin
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package ru.silverhammer.swing.control;
+
+import java.util.Arrays;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
+import java.util.function.IntSupplier;
+
+import javax.swing.SwingUtilities;
+
+// trigram index over rendered row strings, built in chunks while the event dispatch thread is idle,
+// rows not indexed yet and searches shorter than a trigram are checked directly
+class SearchIndex {
+
+	private static final int GRAM = 3;
+	private static final int MIN_ROWS = 1000;
+	private static final int CHUNK = 2000;
+	// only the beginning of longer cells is indexed, their rows are always checked
+	private static final int MAX_TEXT = 256;
+
+	private static class Postings {
+
+		private int[] rows = new int[4];
+		private int size;
+
+		void add(int row) {
+			if (size > 0 && rows[size - 1] == row) {
+				return;
+			}
+			if (size == rows.length) {
+				rows = Arrays.copyOf(rows, size * 2);
+			}
+			rows[size++] = row;
+		}
+
+		int ceiling(int row) {
+			int i = Arrays.binarySearch(rows, 0, size, row);
+			return i < 0 ? -i - 1 : i;
+		}
+	}
+
+	private static final Postings NONE = new Postings();
+
+	private final IntSupplier size;
+	private final IntFunction<String[]> texts;
+
+	// open addressing map from packed trigram to postings
+	private long[] keys;
+	private Postings[] postings;
+	private int count;
+	private Postings overflow;
+	private int indexed;
+	private int generation;
+	private boolean building;
+
+	SearchIndex(IntSupplier size, IntFunction<String[]> texts) {
+		this.size = size;
+		this.texts = texts;
+	}
+
+	void invalidate() {
+		keys = null;
+		postings = null;
+		overflow = null;
+		count = 0;
+		indexed = 0;
+		building = false;
+		generation++;
+	}
+
+	void rowsAdded(int first, int last) {
+		if (keys != null) {
+			if (first < indexed) {
+				invalidate();
+			} else {
+				build();
+			}
+		}
+	}
+
+	// first matching row at or after from, wrapping around, or -1
+	int find(String search, int from) {
+		int size = this.size.getAsInt();
+		if (search.isEmpty() || size == 0) {
+			return -1;
+		}
+		Postings best = candidates(search, size);
+		from = Math.min(Math.max(from, 0), size);
+		int result = find(search, best, from, size, row -> true);
+		return result == -1 ? find(search, best, 0, from, row -> true) : result;
+	}
+
+	// all matching rows in ascending order
+	int[] findAll(String search) {
+		int size = this.size.getAsInt();
+		if (search.isEmpty() || size == 0) {
+			return new int[0];
+		}
+		Postings result = new Postings();
+		find(search, candidates(search, size), 0, size, row -> {
+			result.add(row);
+			return false;
+		});
+		return Arrays.copyOf(result.rows, result.size);
+	}
+
+	// postings of the rarest trigram of the search, null when every row has to be checked
+	private Postings candidates(String search, int size) {
+		if (keys == null && size >= MIN_ROWS) {
+			keys = new long[1024];
+			postings = new Postings[1024];
+			overflow = new Postings();
+			build();
+		}
+		Postings best = null;
+		if (keys != null && search.length() >= GRAM) {
+			for (int i = 0; i + GRAM <= search.length(); i++) {
+				Postings p = get(key(search, i));
+				if (p == null) {
+					best = NONE;
+					break;
+				} else if (best == null || p.size < best.size) {
+					best = p;
+				}
+			}
+		}
+		return best;
+	}
+
+	// first matching row the predicate accepts, or -1
+	private int find(String search, Postings best, int from, int to, IntPredicate accept) {
+		int limit = best == null ? from : Math.max(from, Math.min(to, indexed));
+		if (best != null) {
+			// indexed rows are candidates from the postings merged with rows of long cells
+			int i = best.ceiling(from);
+			int j = overflow.ceiling(from);
+			while (true) {
+				int a = i < best.size ? best.rows[i] : Integer.MAX_VALUE;
+				int b = j < overflow.size ? overflow.rows[j] : Integer.MAX_VALUE;
+				int row = Math.min(a, b);
+				if (row >= limit) {
+					break;
+				}
+				if (matches(row, search) && accept.test(row)) {
+					return row;
+				}
+				if (a == row) {
+					i++;
+				}
+				if (b == row) {
+					j++;
+				}
+			}
+		}
+		for (int row = limit; row < to; row++) {
+			if (matches(row, search) && accept.test(row)) {
+				return row;
+			}
+		}
+		return -1;
+	}
+
+	private boolean matches(int row, String search) {
+		for (String text : texts.apply(row)) {
+			if (text != null && text.contains(search)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void build() {
+		if (!building) {
+			building = true;
+			int current = generation;
+			SwingUtilities.invokeLater(() -> build(current));
+		}
+	}
+
+	private void build(int current) {
+		if (current != generation) {
+			return;
+		}
+		int to = Math.min(size.getAsInt(), indexed + CHUNK);
+		index(indexed, to);
+		if (indexed < size.getAsInt()) {
+			SwingUtilities.invokeLater(() -> build(current));
+		} else {
+			building = false;
+		}
+	}
+
+	private void index(int from, int to) {
+		for (int row = from; row < to; row++) {
+			for (String text : texts.apply(row)) {
+				if (text != null) {
+					if (text.length() > MAX_TEXT) {
+						overflow.add(row);
+					}
+					int length = Math.min(text.length(), MAX_TEXT);
+					for (int i = 0; i + GRAM <= length; i++) {
+						put(key(text, i)).add(row);
+					}
+				}
+			}
+		}
+		indexed = to;
+	}
+
+	private Postings get(long key) {
+		int mask = keys.length - 1;
+		for (int i = hash(key) & mask; keys[i] != 0; i = (i + 1) & mask) {
+			if (keys[i] == key) {
+				return postings[i];
+			}
+		}
+		return null;
+	}
+
+	private Postings put(long key) {
+		int mask = keys.length - 1;
+		int i = hash(key) & mask;
+		for (; keys[i] != 0; i = (i + 1) & mask) {
+			if (keys[i] == key) {
+				return postings[i];
+			}
+		}
+		if ((count + 1) * 2 > keys.length) {
+			rehash();
+			return put(key);
+		}
+		count++;
+		keys[i] = key;
+		return postings[i] = new Postings();
+	}
+
+	private void rehash() {
+		long[] oldKeys = keys;
+		Postings[] oldPostings = postings;
+		keys = new long[oldKeys.length * 2];
+		postings = new Postings[oldKeys.length * 2];
+		int mask = keys.length - 1;
+		for (int k = 0; k < oldKeys.length; k++) {
+			if (oldKeys[k] != 0) {
+				int i = hash(oldKeys[k]) & mask;
+				while (keys[i] != 0) {
+					i = (i + 1) & mask;
+				}
+				keys[i] = oldKeys[k];
+				postings[i] = oldPostings[k];
+			}
+		}
+	}
+
+	private static int hash(long key) {
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ h >>> 32);
+	}
+
+	// the leading one keeps keys non-zero
+	private static long key(String text, int from) {
+		long result = 1;
+		for (int i = from; i < from + GRAM; i++) {
+			result = result << 16 | text.charAt(i);
+		}
+		return result;
+	}
+}
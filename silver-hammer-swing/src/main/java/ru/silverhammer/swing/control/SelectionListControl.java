@@ -33,6 +33,10 @@ public class SelectionListControl extends ListControl<SelectionList> {
 
 	private static final long serialVersionUID = 396462498473332445L;
 
+	@Override
+	protected void itemsAdded() {
+	}
+
 	@Override
 	public Object getValue() {
 		if (!isMultiSelection()) {
@@ -45,14 +49,19 @@ public class SelectionListControl extends ListControl<SelectionList> {
 	@Override
 	public void setValue(Object value) {
 		if (!isMultiSelection()) {
-			getComponent().setSelectedValue(value, true);
+			int i = value == null ? -1 : getModel().indexOf(value);
+			if (i == -1) {
+				getComponent().clearSelection();
+			} else {
+				getComponent().setSelectedIndex(i);
+				getComponent().ensureIndexIsVisible(i);
+			}
 		} else {
 			getComponent().clearSelection();
 			if (value instanceof Collection) {
-				int count = getModel().getSize();
-				for (int i = 0; i < count; i++) {
-					Object val = getModel().get(i);
-					if (((Collection<?>) value).contains(val)) {
+				for (Object o : (Collection<?>) value) {
+					int i = getModel().indexOf(o);
+					if (i != -1) {
 						getComponent().addSelectionInterval(i, i);
 					}
 				}
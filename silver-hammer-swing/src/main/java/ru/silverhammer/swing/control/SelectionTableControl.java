@@ -26,14 +26,11 @@
 package ru.silverhammer.swing.control;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 
-import ru.reflexio.IInstanceFieldReflection;
-import ru.reflexio.TypeReflection;
 import ru.sanatio.conversion.IStringConverter;
-import ru.silverhammer.model.UiModel;
-import ru.silverhammer.processor.Caption;
 import ru.silverhammer.control.SelectionTable;
 
 public class SelectionTableControl extends TableControl<SelectionTable> {
@@ -41,44 +38,53 @@ public class SelectionTableControl extends TableControl<SelectionTable> {
 	private static final long serialVersionUID = -3692427066762483919L;
 
 	private final IStringConverter converter;
-	private final UiModel model;
 
-	public SelectionTableControl(IStringConverter converter, UiModel model) {
+	public SelectionTableControl(IStringConverter converter) {
 		super();
 		this.converter = converter;
-		this.model = model;
 	}
 	
 	@Override
 	public Object getValue() {
 		if (!isMultiSelection()) {
 			int i = getComponent().getSelectedRow();
-			return i == -1 ? null : data.get(i);
+			return i == -1 ? null : data.get(getComponent().convertRowIndexToModel(i));
 		} else {
 			List<Object[]> result = new ArrayList<>();
-			for (int i : getComponent().getSelectedRows()) {
+			for (int i : getSelectedRows()) {
 				result.add(data.get(i));
 			}
 			return result;
 		}
 	}
 
-	@SuppressWarnings("unchecked")
 	@Override
 	public void setValue(Object value) {
-		getComponent().clearSelection();
+		batch(() -> select(value));
+	}
+
+	@SuppressWarnings("unchecked")
+	private void select(Object value) {
 		if (!isMultiSelection() && value instanceof Object[]) {
-			int i = findRow((Object[]) value);
+			int i = toView(findRow((Object[]) value));
 			if (i != -1) {
 				getComponent().setRowSelectionInterval(i, i);
+			} else {
+				getComponent().clearSelection();
 			}
 		} else if (isMultiSelection() && value instanceof Collection) {
-			for (Object[] o : (Collection<Object[]>) value) {
+			Collection<Object[]> rows = (Collection<Object[]>) value;
+			int[] indices = new int[rows.size()];
+			int count = 0;
+			for (Object[] o : rows) {
 				int i = findRow(o);
 				if (i != -1) {
-					getComponent().setRowSelectionInterval(i, i);
+					indices[count++] = i;
 				}
 			}
+			selectRows(Arrays.copyOf(indices, count));
+		} else {
+			getComponent().clearSelection();
 		}
 		fireValueChanged();
 	}
@@ -89,17 +95,7 @@ public class SelectionTableControl extends TableControl<SelectionTable> {
 			setVisibleRowCount(annotation.visibleRows());
 		}
 		setSelectionType(annotation.multiSelection());
-		if (annotation.annotationCaptions() != Void.class) {
-			for (IInstanceFieldReflection fr : new TypeReflection<>(annotation.annotationCaptions()).getInstanceFields()) {
-				if (model.hasControlAnnotation(fr)) {
-					Caption c = fr.getAnnotation(Caption.class);
-					getCaptions().add(c == null ? fr.getName() : converter.getString(c.value()));
-				}
-			}
-		} else if (annotation.captions().length > 0) {
-			for (String caption : annotation.captions()) {
-				getCaptions().add(converter.getString(caption));
-			}
-		}
+		initTable(converter, annotation.annotationCaptions(), annotation.captions(),
+				annotation.sortable(), annotation.filterable(), annotation.columnar());
 	}
 }
@@ -25,16 +25,32 @@
  */
 package ru.silverhammer.swing.control;
 
+import ru.sanatio.conversion.IStringConverter;
+import ru.silverhammer.control.ColumnarRows;
 import ru.silverhammer.control.ICollectionControl;
+import ru.silverhammer.control.IItemSource;
+import ru.silverhammer.control.PagedItems;
+import ru.silverhammer.converter.ProjectedRows;
 import ru.silverhammer.control.ISelectionControl;
+import ru.silverhammer.processor.Caption;
+import ru.silverhammer.processor.FieldBlueprint;
+import ru.silverhammer.processor.TypeBlueprint;
 
 import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.event.TableModelEvent;
 import javax.swing.table.AbstractTableModel;
 import java.awt.*;
 import java.lang.annotation.Annotation;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
 
 public abstract class TableControl<A extends Annotation> extends Control<Object, A, JTable>
         implements ICollectionControl<Object, A, Object[]>, ISelectionControl<Object, A, Object[]> {
@@ -43,6 +59,40 @@ public abstract class TableControl<A extends Annotation> extends Control<Object,
 
         private static final long serialVersionUID = 254186348731104319L;
 
+        private final RowEvents events = new RowEvents(new RowEvents.Sink() {
+            @Override
+            public void rowsChanged(boolean inserted, int first, int last) {
+                TableModel.super.fireTableChanged(new TableModelEvent(TableModel.this, first, last, TableModelEvent.ALL_COLUMNS,
+                        inserted ? TableModelEvent.INSERT : TableModelEvent.DELETE));
+            }
+
+            @Override
+            public void dataChanged() {
+                TableModel.super.fireTableChanged(new TableModelEvent(TableModel.this));
+            }
+        });
+
+        // inside a batch row insertions, removals and data changes are merged, the row caches are dropped meanwhile
+        @Override
+        public void fireTableChanged(TableModelEvent e) {
+            boolean rows = e.getColumn() == TableModelEvent.ALL_COLUMNS && e.getFirstRow() != TableModelEvent.HEADER_ROW;
+            if (events.isBatching() && rows) {
+                selectedRows = null;
+                searchIndex.invalidate();
+                rowIndex = null;
+            }
+            if (rows && e.getType() == TableModelEvent.INSERT) {
+                events.inserted(e.getFirstRow(), e.getLastRow());
+            } else if (rows && e.getType() == TableModelEvent.DELETE) {
+                events.removed(e.getFirstRow(), e.getLastRow());
+            } else if (rows && e.getLastRow() == Integer.MAX_VALUE) {
+                events.dataChanged();
+            } else {
+                events.flush();
+                super.fireTableChanged(e);
+            }
+        }
+
         @Override
         public String getColumnName(int column) {
             return captions != null && column < captions.size() ? captions.get(column) : null;
@@ -55,7 +105,9 @@ public abstract class TableControl<A extends Annotation> extends Control<Object,
 
         @Override
         public Object getValueAt(int rowIndex, int columnIndex) {
-            if (data != null && rowIndex < data.size()) {
+            if (data instanceof ColumnarRows) {
+                return rowIndex < data.size() ? ((ColumnarRows) data).getValue(rowIndex, columnIndex) : null;
+            } else if (data != null && rowIndex < data.size()) {
                 Object[] row = data.get(rowIndex);
                 if (columnIndex < row.length) {
                     return row[columnIndex];
@@ -71,26 +123,79 @@ public abstract class TableControl<A extends Annotation> extends Control<Object,
     }
 
     private final List<String> captions = new ArrayList<>();
-    protected final ArrayList<Object[]> data = new ArrayList<>();
+    protected List<Object[]> data = new ArrayList<>();
+
+    private final SearchIndex searchIndex = new SearchIndex(() -> data.size(), this::getRowTexts);
+
+    private Class<?>[] columnTypes;
+    private Function<Object[], ?> rowKey;
+    private Map<Object, Integer> rowIndex;
+    private int[] selectedRows;
+    private TableSorter sorter;
+    private JTextField filterField;
 
     protected TableControl() {
         super(true);
         getComponent().setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
-        getComponent().getSelectionModel().addListSelectionListener(e -> fireValueChanged());
+        getComponent().getSelectionModel().addListSelectionListener(e -> {
+            selectedRows = null;
+            fireValueChanged();
+        });
         getComponent().addKeyListener(new SearchAdapter() {
             @Override
-            protected void search(String search) {
-                for (int i = 0; i < data.size(); i++) {
-                    for (int j = 0; j < captions.size(); j++) {
-                        Object val = getModel().getValueAt(i, j);
-                        if (val != null && val.toString().contains(search)) {
-                            getComponent().setRowSelectionInterval(i, i);
-                            break;
+            protected void search(String search, boolean next) {
+                int count = getComponent().getRowCount();
+                int current = getComponent().getSelectionModel().getLeadSelectionIndex();
+                current = current >= count ? -1 : current;
+                int from = next ? current + 1 : Math.max(current, 0);
+                from = from >= count ? 0 : from;
+                int row = -1;
+                if (sorter == null || sorter.isIdentity()) {
+                    row = searchIndex.find(search, from);
+                } else {
+                    // matching model rows are mapped to the view, the first one at or after from wins, wrapping around
+                    int first = -1;
+                    for (int model : searchIndex.findAll(search)) {
+                        int view = getComponent().convertRowIndexToView(model);
+                        if (view != -1) {
+                            if (view >= from && (row == -1 || view < row)) {
+                                row = view;
+                            }
+                            if (first == -1 || view < first) {
+                                first = view;
+                            }
                         }
                     }
+                    row = row == -1 ? first : row;
+                }
+                if (row != -1) {
+                    getComponent().setRowSelectionInterval(row, row);
+                    getComponent().scrollRectToVisible(getComponent().getCellRect(row, 0, true));
                 }
             }
         });
+        getModel().addTableModelListener(e -> {
+            selectedRows = null;
+            if (e.getType() == TableModelEvent.INSERT && e.getLastRow() < data.size()) {
+                searchIndex.rowsAdded(e.getFirstRow(), e.getLastRow());
+                indexRows(e.getFirstRow(), e.getLastRow() + 1);
+            } else {
+                searchIndex.invalidate();
+                rowIndex = null;
+            }
+        });
+    }
+
+    private String[] getRowTexts(int row) {
+        return getRowTexts(data.get(row));
+    }
+
+    private String[] getRowTexts(Object[] row) {
+        String[] result = new String[captions.size()];
+        for (int i = 0; i < result.length && i < row.length; i++) {
+            result[i] = row[i] == null ? null : row[i].toString();
+        }
+        return result;
     }
 
     @SuppressWarnings("unchecked")
@@ -126,7 +231,7 @@ public abstract class TableControl<A extends Annotation> extends Control<Object,
         return new ArrayList<Object[]>() {
             @Override
             public boolean add(Object[] item) {
-                int i = findRow(item);
+                int i = toView(findRow(item));
                 if (i != -1) {
                     getComponent().setRowSelectionInterval(i, i);
                     return true;
@@ -136,7 +241,7 @@ public abstract class TableControl<A extends Annotation> extends Control<Object,
 
             @Override
             public Object[] remove(int i) {
-                int j = findRow(get(i));
+                int j = toView(findRow(get(i)));
                 if (j != -1) {
                     getComponent().removeRowSelectionInterval(j, j);
                 }
@@ -145,12 +250,12 @@ public abstract class TableControl<A extends Annotation> extends Control<Object,
 
             @Override
             public int size() {
-                return getComponent().getSelectedRows().length;
+                return getSelectedRows().length;
             }
 
             @Override
             public Object[] get(int i) {
-                int index = getComponent().getSelectedRows()[i];
+                int index = getSelectedRows()[i];
                 return data.get(index);
             }
 
@@ -206,8 +311,8 @@ public abstract class TableControl<A extends Annotation> extends Control<Object,
             @Override
             public boolean add(Object[] item) {
                 if (item != null) {
-                    data.add(item);
-                    getModel().fireTableDataChanged();
+                    mutableRows().add(item);
+                    getModel().fireTableRowsInserted(data.size() - 1, data.size() - 1);
                     fireValueChanged();
                     return true;
                 }
@@ -216,8 +321,8 @@ public abstract class TableControl<A extends Annotation> extends Control<Object,
 
             @Override
             public Object[] remove(int i) {
-                data.remove(i);
-                getModel().fireTableDataChanged();
+                mutableRows().remove(i);
+                getModel().fireTableRowsDeleted(i, i);
                 fireValueChanged();
                 return null;
             }
@@ -234,19 +339,332 @@ public abstract class TableControl<A extends Annotation> extends Control<Object,
 
             @Override
             public void clear() {
-                data.clear();
+                if (data instanceof PagedItems) {
+                    data = createRows(0);
+                } else {
+                    data.clear();
+                }
                 getModel().fireTableDataChanged();
                 fireValueChanged();
             }
         };
     }
 
+    // table model events are merged as well as value changes
+    @Override
+    public void batch(Runnable changes) {
+        getModel().events.begin();
+        super.batch(() -> {
+            try {
+                changes.run();
+            } finally {
+                getModel().events.end();
+            }
+        });
+    }
+
+    @Override
+    public void addAll(Collection<? extends Object[]> rows) {
+        int from = data.size();
+        for (Object[] row : rows) {
+            if (row != null) {
+                mutableRows().add(row);
+            }
+        }
+        if (data.size() > from) {
+            getModel().fireTableRowsInserted(from, data.size() - 1);
+            fireValueChanged();
+        }
+    }
+
+    @Override
+    public void removeRange(int from, int to) {
+        if (from < to) {
+            mutableRows().subList(from, to).clear();
+            getModel().fireTableRowsDeleted(from, to - 1);
+            fireValueChanged();
+        }
+    }
+
+    @Override
+    public void replaceAll(Collection<? extends Object[]> rows) {
+        data = createRows(rows.size());
+        for (Object[] row : rows) {
+            if (row != null) {
+                data.add(row);
+            }
+        }
+        getModel().fireTableDataChanged();
+        fireValueChanged();
+    }
+
+    @Override
+    public void setItemSource(IItemSource<Object[]> source) {
+        data = new PagedItems<>(source);
+        getModel().fireTableDataChanged();
+        fireValueChanged();
+    }
+
+    private List<Object[]> mutableRows() {
+        if (data instanceof PagedItems) {
+            List<Object[]> rows = createRows(data.size());
+            rows.addAll(data);
+            data = rows;
+        }
+        return data;
+    }
+
+    private List<Object[]> createRows(int capacity) {
+        return columnTypes == null ? new ArrayList<>(capacity) : new ColumnarRows(columnTypes, capacity);
+    }
+
+    protected void setRows(Collection<Object[]> rows) {
+        if (rows instanceof ColumnarRows && columnTypes != null) {
+            data = ((ColumnarRows) rows).copy();
+        } else if (rows instanceof ProjectedRows && columnTypes == null) {
+            data = (ProjectedRows) rows;
+        } else if (rows instanceof ProjectedRows) {
+            // columnar storage holds every value, so the beans are projected once straight into the columns
+            data = createRows(rows.size());
+            ((ProjectedRows) rows).copyTo(data);
+        } else {
+            data = createRows(rows == null ? 0 : rows.size());
+            if (rows != null) {
+                data.addAll(rows);
+            }
+        }
+    }
+
+    protected List<Object[]> copyRows() {
+        if (data instanceof ColumnarRows) {
+            return ((ColumnarRows) data).copy();
+        }
+        return data instanceof ProjectedRows ? ((ProjectedRows) data).copy() : new ArrayList<>(data);
+    }
+
+    public Class<?>[] getColumnTypes() {
+        return columnTypes == null ? null : columnTypes.clone();
+    }
+
+    // non-null types switch to columnar storage, null types are inferred from the first value of the column
+    public void setColumnTypes(Class<?>[] types) {
+        columnTypes = types == null ? null : types.clone();
+        if (!(data instanceof PagedItems) && (columnTypes != null || data instanceof ColumnarRows)) {
+            List<Object[]> rows = data;
+            data = createRows(rows.size());
+            data.addAll(rows);
+            getModel().fireTableDataChanged();
+        }
+    }
+
+    // shared by the table annotations: captions come from the fields of annotationCaptions or from the plain captions
+    protected void initTable(IStringConverter converter, Class<?> annotationCaptions, String[] captions,
+                             boolean sortable, boolean filterable, boolean columnar) {
+        if (sortable) {
+            setSortable(true);
+        }
+        setFilterable(filterable);
+        List<Class<?>> types = new ArrayList<>();
+        if (annotationCaptions != Void.class) {
+            for (FieldBlueprint fb : TypeBlueprint.of(annotationCaptions).getFields()) {
+                if (fb.isControl()) {
+                    Caption c = fb.getCaption();
+                    getCaptions().add(c == null ? fb.getField().getName() : converter.getString(c.value()));
+                    types.add(fb.getField().getType());
+                }
+            }
+        } else {
+            for (String caption : captions) {
+                getCaptions().add(converter.getString(caption));
+                types.add(null);
+            }
+        }
+        if (columnar) {
+            setColumnTypes(types.toArray(new Class<?>[0]));
+        }
+    }
+
+    // rows are identified by content unless a key extractor is set, rows must not change in place
+    public void setRowKey(Function<Object[], ?> rowKey) {
+        this.rowKey = rowKey;
+        rowIndex = null;
+    }
+
+    private Object getRowKey(Object[] row) {
+        return rowKey == null ? new RowContent(row) : rowKey.apply(row);
+    }
+
+    private void indexRows(int from, int to) {
+        if (rowIndex != null) {
+            for (int i = from; i < to; i++) {
+                rowIndex.putIfAbsent(rowKey == null ? new RowContent(data, i) : rowKey.apply(data.get(i)), i);
+            }
+        }
+    }
+
     protected int findRow(Object[] value) {
-        for (int i = 0; i < data.size(); i++) {
-            if (Arrays.equals(data.get(i), value)) {
-                return i;
+        if (value == null) {
+            return -1;
+        }
+        if (rowIndex == null) {
+            rowIndex = new HashMap<>();
+            indexRows(0, data.size());
+        }
+        Integer result = rowIndex.get(getRowKey(value));
+        return result == null ? -1 : result;
+    }
+
+    // model indices of the selected rows
+    protected int[] getSelectedRows() {
+        if (selectedRows == null) {
+            selectedRows = getComponent().getSelectedRows();
+            for (int i = 0; i < selectedRows.length; i++) {
+                selectedRows[i] = getComponent().convertRowIndexToModel(selectedRows[i]);
             }
         }
-        return -1;
+        return selectedRows;
+    }
+
+    // view index of the model row, -1 if the row is filtered out
+    protected int toView(int row) {
+        return row == -1 ? -1 : getComponent().convertRowIndexToView(row);
+    }
+
+    public boolean isSortable() {
+        return sorter != null && sorter.isSortable();
+    }
+
+    public void setSortable(boolean sortable) {
+        getSorter().setSortable(sortable);
+    }
+
+    public boolean isFilterable() {
+        return filterField != null;
+    }
+
+    // adds a text field filtering rows containing the typed text in any column
+    public void setFilterable(boolean filterable) {
+        if (filterable && filterField == null) {
+            filterField = new JTextField();
+            filterField.getDocument().addDocumentListener(new DocumentListener() {
+                @Override
+                public void insertUpdate(DocumentEvent e) {
+                    updateTextFilter();
+                }
+
+                @Override
+                public void removeUpdate(DocumentEvent e) {
+                    updateTextFilter();
+                }
+
+                @Override
+                public void changedUpdate(DocumentEvent e) {
+                    updateTextFilter();
+                }
+            });
+            add(filterField, BorderLayout.NORTH);
+        } else if (!filterable && filterField != null) {
+            remove(filterField);
+            filterField = null;
+            setRowFilter(null);
+        }
+        revalidate();
+    }
+
+    private void updateTextFilter() {
+        String text = filterField.getText();
+        setRowFilter(text.isEmpty() ? null : row -> {
+            for (String cell : getRowTexts(row)) {
+                if (cell != null && cell.contains(text)) {
+                    return true;
+                }
+            }
+            return false;
+        });
+    }
+
+    public Predicate<Object[]> getRowFilter() {
+        return sorter == null ? null : sorter.getFilter();
+    }
+
+    // rows are sorted and filtered off the event dispatch thread for large tables
+    public void setRowFilter(Predicate<Object[]> filter) {
+        if (filter != null || sorter != null) {
+            getSorter().setFilter(filter);
+        }
+    }
+
+    private TableSorter getSorter() {
+        if (sorter == null) {
+            sorter = new TableSorter(getModel(), () -> data);
+            getComponent().setRowSorter(sorter);
+        }
+        return sorter;
+    }
+
+    // selects rows as coalesced intervals in a single selection model update
+    protected void selectRows(int[] rows) {
+        ListSelectionModel model = getComponent().getSelectionModel();
+        int[] sorted = new int[rows.length];
+        int count = 0;
+        for (int row : rows) {
+            int view = toView(row);
+            if (view != -1) {
+                sorted[count++] = view;
+            }
+        }
+        sorted = Arrays.copyOf(sorted, count);
+        Arrays.sort(sorted);
+        model.setValueIsAdjusting(true);
+        try {
+            model.clearSelection();
+            for (int i = 0; i < sorted.length;) {
+                int j = i;
+                while (j + 1 < sorted.length && sorted[j + 1] <= sorted[j] + 1) {
+                    j++;
+                }
+                model.addSelectionInterval(sorted[i], sorted[j]);
+                i = j + 1;
+            }
+        } finally {
+            model.setValueIsAdjusting(false);
+        }
+    }
+
+    // indexed rows are referenced by position, so materialized columnar rows are not retained
+    private static final class RowContent {
+
+        private final List<Object[]> rows;
+        private final Object[] row;
+        private final int index;
+        private final int hash;
+
+        RowContent(Object[] row) {
+            this.rows = null;
+            this.row = row;
+            this.index = -1;
+            this.hash = Arrays.hashCode(row);
+        }
+
+        RowContent(List<Object[]> rows, int index) {
+            this.rows = rows;
+            this.row = null;
+            this.index = index;
+            this.hash = Arrays.hashCode(rows.get(index));
+        }
+
+        private Object[] getCells() {
+            return row == null ? rows.get(index) : row;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof RowContent && Arrays.equals(getCells(), ((RowContent) obj).getCells());
+        }
     }
 }
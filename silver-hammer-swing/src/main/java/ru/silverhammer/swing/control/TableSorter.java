@@ -0,0 +1,532 @@
+/*
+ * Copyright (c) 2020, Dmitriy Shchekotin
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package ru.silverhammer.swing.control;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BooleanSupplier;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.swing.RowSorter;
+import javax.swing.SortOrder;
+import javax.swing.SwingUtilities;
+import javax.swing.table.TableModel;
+
+import ru.silverhammer.control.ColumnarRows;
+import ru.silverhammer.control.IItemSource;
+import ru.silverhammer.control.PagedItems;
+import ru.silverhammer.converter.ProjectedRows;
+
+// computes the view permutation in background for large tables and swaps it in on the event dispatch thread
+class TableSorter extends RowSorter<TableModel> {
+
+	private static final Logger LOGGER = Logger.getLogger(TableSorter.class.getName());
+	private static final int ASYNC_THRESHOLD = 10000;
+	// more inserted or updated rows are placed by sorting the whole table again
+	private static final int INSERT_THRESHOLD = 64;
+	// rows read between checks whether a background sort is still current
+	private static final int CHECK_INTERVAL = 1024;
+	// paged sources may block, so their rows are not read on the common pool
+	private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(r -> {
+		Thread result = new Thread(r, "silver-hammer-sort");
+		result.setDaemon(true);
+		return result;
+	});
+
+	private interface Cells {
+
+		int compare(int a, int b, int key);
+	}
+
+	private final TableModel model;
+	private final Supplier<List<Object[]>> rows;
+
+	private List<SortKey> sortKeys = Collections.emptyList();
+	private Predicate<Object[]> filter;
+	private boolean sortable;
+	private int[] viewToModel;
+	private int[] modelToView;
+	private volatile int generation;
+	private boolean pending;
+
+	TableSorter(TableModel model, Supplier<List<Object[]>> rows) {
+		this.model = model;
+		this.rows = rows;
+	}
+
+	@Override
+	public TableModel getModel() {
+		return model;
+	}
+
+	boolean isSortable() {
+		return sortable;
+	}
+
+	void setSortable(boolean sortable) {
+		this.sortable = sortable;
+		if (!sortable && !sortKeys.isEmpty()) {
+			setSortKeys(null);
+		}
+	}
+
+	// view rows are the model rows in model order
+	boolean isIdentity() {
+		return viewToModel == null;
+	}
+
+	Predicate<Object[]> getFilter() {
+		return filter;
+	}
+
+	void setFilter(Predicate<Object[]> filter) {
+		this.filter = filter;
+		sort(viewToModel);
+	}
+
+	@Override
+	public void toggleSortOrder(int column) {
+		if (!sortable) {
+			return;
+		}
+		SortOrder order = SortOrder.ASCENDING;
+		if (!sortKeys.isEmpty() && sortKeys.get(0).getColumn() == column) {
+			order = sortKeys.get(0).getSortOrder() == SortOrder.ASCENDING ? SortOrder.DESCENDING : SortOrder.UNSORTED;
+		}
+		setSortKeys(order == SortOrder.UNSORTED ? null : Collections.singletonList(new SortKey(column, order)));
+	}
+
+	@Override
+	public List<? extends SortKey> getSortKeys() {
+		return sortKeys;
+	}
+
+	@Override
+	public void setSortKeys(List<? extends SortKey> keys) {
+		sortKeys = keys == null ? Collections.emptyList() : Collections.unmodifiableList(new ArrayList<>(keys));
+		fireSortOrderChanged();
+		sort(viewToModel);
+	}
+
+	@Override
+	public int convertRowIndexToModel(int index) {
+		if (viewToModel == null) {
+			if (index < 0 || index >= getModelRowCount()) {
+				throw new IndexOutOfBoundsException("Invalid index");
+			}
+			return index;
+		}
+		return viewToModel[index];
+	}
+
+	@Override
+	public int convertRowIndexToView(int index) {
+		if (modelToView == null) {
+			if (index < 0 || index >= getModelRowCount()) {
+				throw new IndexOutOfBoundsException("Invalid index");
+			}
+			return index;
+		}
+		return modelToView[index];
+	}
+
+	@Override
+	public int getViewRowCount() {
+		return viewToModel == null ? getModelRowCount() : viewToModel.length;
+	}
+
+	@Override
+	public int getModelRowCount() {
+		return model.getRowCount();
+	}
+
+	@Override
+	public void modelStructureChanged() {
+		if (!sortKeys.isEmpty() && sortKeys.get(0).getColumn() >= model.getColumnCount()) {
+			sortKeys = Collections.emptyList();
+			fireSortOrderChanged();
+		}
+		sort(remap());
+	}
+
+	@Override
+	public void allRowsChanged() {
+		sort(remap());
+	}
+
+	@Override
+	public void rowsInserted(int firstRow, int endRow) {
+		if (viewToModel == null || pending || endRow - firstRow >= INSERT_THRESHOLD) {
+			sort(inserted(firstRow, endRow - firstRow + 1));
+		} else {
+			place(shifted(firstRow, endRow - firstRow + 1), firstRow, endRow);
+		}
+	}
+
+	@Override
+	public void rowsDeleted(int firstRow, int endRow) {
+		// deleting rows keeps the order of the remaining ones
+		int[] remaining = deleted(firstRow, endRow);
+		if (pending) {
+			sort(remaining);
+		} else {
+			apply(remaining);
+		}
+	}
+
+	// a few updated rows are taken out of the order and placed again, the other rows keep their positions
+	@Override
+	public void rowsUpdated(int firstRow, int endRow) {
+		boolean current = viewToModel != null && modelToView.length == getModelRowCount();
+		if (!current || pending || endRow - firstRow >= INSERT_THRESHOLD) {
+			sort(current ? viewToModel : remap());
+		} else {
+			place(without(firstRow, endRow), firstRow, endRow);
+		}
+	}
+
+	@Override
+	public void rowsUpdated(int firstRow, int endRow, int column) {
+		rowsUpdated(firstRow, endRow);
+	}
+
+	// interim is a valid mapping for the current model shown until the background result arrives
+	private void sort(int[] interim) {
+		int current = ++generation;
+		pending = false;
+		if (sortKeys.isEmpty() && filter == null) {
+			apply(null);
+			return;
+		}
+		List<Object[]> data = rows.get();
+		List<SortKey> keys = sortKeys;
+		Predicate<Object[]> predicate = filter;
+		if (data.size() < ASYNC_THRESHOLD) {
+			int[] result;
+			try {
+				result = compute(data, data.size(), keys, predicate, () -> false);
+			} catch (RuntimeException e) {
+				fail(e);
+				return;
+			}
+			apply(result);
+		} else {
+			int count = data.size();
+			List<Object[]> snapshot = snapshot(data);
+			if (interim != viewToModel) {
+				apply(interim);
+			}
+			pending = true;
+			BooleanSupplier stale = () -> current != generation;
+			CompletableFuture.supplyAsync(() -> compute(snapshot, count, keys, predicate, stale), EXECUTOR).whenComplete((result, error) -> SwingUtilities.invokeLater(() -> {
+				if (current == generation) {
+					pending = false;
+					if (error == null) {
+						if (data instanceof ProjectedRows && rows.get() == data) {
+							((ProjectedRows) data).merge((ProjectedRows) snapshot);
+						}
+						apply(result);
+					} else {
+						fail(error);
+					}
+				}
+			}));
+		}
+	}
+
+	// a failing filter or comparator leaves rows unsorted and unfiltered, the error is logged
+	private void fail(Throwable error) {
+		pending = false;
+		filter = null;
+		if (!sortKeys.isEmpty()) {
+			sortKeys = Collections.emptyList();
+			fireSortOrderChanged();
+		}
+		apply(null);
+		Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+		LOGGER.log(Level.WARNING, "Sorting or filtering the table failed, showing the rows unsorted", cause);
+	}
+
+	private void apply(int[] mapping) {
+		int[] previous = viewToModel;
+		viewToModel = mapping;
+		if (mapping == null) {
+			modelToView = null;
+		} else {
+			modelToView = new int[getModelRowCount()];
+			Arrays.fill(modelToView, -1);
+			for (int i = 0; i < mapping.length; i++) {
+				modelToView[mapping[i]] = i;
+			}
+		}
+		fireRowSorterChanged(previous);
+	}
+
+	// previous order of the rows still present after the whole model changed, new rows are shown last unless filtered
+	private int[] remap() {
+		if (viewToModel == null) {
+			return null;
+		}
+		int count = getModelRowCount();
+		int previous = modelToView.length;
+		int[] result = new int[viewToModel.length + (filter == null ? Math.max(count - previous, 0) : 0)];
+		int size = 0;
+		for (int row : viewToModel) {
+			if (row < count) {
+				result[size++] = row;
+			}
+		}
+		for (int row = previous; filter == null && row < count; row++) {
+			result[size++] = row;
+		}
+		return Arrays.copyOf(result, size);
+	}
+
+	// previous order with rows shifted by the insertion, inserted rows are shown last unless filtered
+	private int[] inserted(int first, int count) {
+		if (viewToModel == null) {
+			return null;
+		}
+		int[] result = Arrays.copyOf(shifted(first, count), viewToModel.length + (filter == null ? count : 0));
+		for (int i = 0; filter == null && i < count; i++) {
+			result[viewToModel.length + i] = first + i;
+		}
+		return result;
+	}
+
+	// previous order with rows shifted by the insertion, without the inserted rows
+	private int[] shifted(int first, int count) {
+		int[] result = new int[viewToModel.length];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = viewToModel[i] >= first ? viewToModel[i] + count : viewToModel[i];
+		}
+		return result;
+	}
+
+	// current order without the given rows
+	private int[] without(int first, int last) {
+		int[] result = new int[viewToModel.length];
+		int size = 0;
+		for (int row : viewToModel) {
+			if (row < first || row > last) {
+				result[size++] = row;
+			}
+		}
+		return Arrays.copyOf(result, size);
+	}
+
+	private int[] deleted(int first, int last) {
+		if (viewToModel == null) {
+			return null;
+		}
+		int count = last - first + 1;
+		int[] result = new int[viewToModel.length];
+		int size = 0;
+		for (int row : viewToModel) {
+			if (row < first) {
+				result[size++] = row;
+			} else if (row > last) {
+				result[size++] = row - count;
+			}
+		}
+		return Arrays.copyOf(result, size);
+	}
+
+	private void place(int[] mapping, int first, int last) {
+		int[] result;
+		try {
+			result = insert(mapping, first, last);
+		} catch (RuntimeException e) {
+			fail(e);
+			return;
+		}
+		apply(result);
+	}
+
+	// places the rows from first to last into a mapping without them by binary search
+	private int[] insert(int[] mapping, int first, int last) {
+		List<Object[]> data = rows.get();
+		int count = last - first + 1;
+		Integer[] added = new Integer[count];
+		int size = 0;
+		for (int row = first; row <= last; row++) {
+			if (filter == null || filter.test(data.get(row))) {
+				added[size++] = row;
+			}
+		}
+		List<SortKey> keys = active(sortKeys);
+		Comparator<Integer> order = comparator(keys, cells(data, keys)).thenComparingInt(Integer::intValue);
+		Arrays.sort(added, 0, size, order);
+		int[] result = new int[mapping.length + size];
+		int i = 0;
+		int j = 0;
+		for (int k = 0; k < size; k++) {
+			int low = i;
+			int high = mapping.length;
+			while (low < high) {
+				int middle = (low + high) >>> 1;
+				if (order.compare(mapping[middle], added[k]) < 0) {
+					low = middle + 1;
+				} else {
+					high = middle;
+				}
+			}
+			while (i < low) {
+				result[j++] = mapping[i++];
+			}
+			result[j++] = added[k];
+		}
+		while (i < mapping.length) {
+			result[j++] = mapping[i++];
+		}
+		return result;
+	}
+
+	// copies the rows without projecting or loading them, the values are read in background,
+	// paged sources are read once in order so a single page is kept
+	@SuppressWarnings("unchecked")
+	private static List<Object[]> snapshot(List<Object[]> data) {
+		if (data instanceof ColumnarRows) {
+			return ((ColumnarRows) data).copy();
+		} else if (data instanceof ProjectedRows) {
+			return ((ProjectedRows) data).copy();
+		} else if (data instanceof PagedItems) {
+			return new PagedItems<>(((PagedItems<Object[]>) data).getSource(), IItemSource.PAGE_SIZE, 1);
+		}
+		return new ArrayList<>(data);
+	}
+
+	// stops reading rows once the result is no longer needed
+	private static int[] compute(List<Object[]> rows, int count, List<SortKey> keys, Predicate<Object[]> filter, BooleanSupplier stale) {
+		List<SortKey> active = active(keys);
+		boolean columnar = rows instanceof ColumnarRows;
+		// sort values are read sequentially once instead of on every comparison
+		Object[][] values = columnar ? null : new Object[active.size()][count];
+		count = Math.min(count, rows.size());
+		Integer[] indices = new Integer[count];
+		int size = 0;
+		for (int i = 0; i < count; i++) {
+			if (i % CHECK_INTERVAL == 0 && stale.getAsBoolean()) {
+				throw new CancellationException();
+			}
+			Object[] row = columnar && filter == null ? null : rows.get(i);
+			if (filter == null || filter.test(row)) {
+				indices[size++] = i;
+				for (int k = 0; values != null && k < active.size(); k++) {
+					values[k][i] = getValue(row, active.get(k).getColumn());
+				}
+			}
+		}
+		indices = Arrays.copyOf(indices, size);
+		if (!active.isEmpty()) {
+			Cells cells = columnar ? cells(rows, active) : (a, b, k) -> compare(values[k][a], values[k][b]);
+			Arrays.parallelSort(indices, comparator(active, cells));
+		}
+		int[] result = new int[size];
+		for (int i = 0; i < size; i++) {
+			result[i] = indices[i];
+		}
+		return result;
+	}
+
+	private static List<SortKey> active(List<SortKey> keys) {
+		List<SortKey> result = new ArrayList<>(keys.size());
+		for (SortKey key : keys) {
+			if (key.getSortOrder() != SortOrder.UNSORTED) {
+				result.add(key);
+			}
+		}
+		return result;
+	}
+
+	private static Cells cells(List<Object[]> rows, List<SortKey> keys) {
+		if (rows instanceof ColumnarRows) {
+			ColumnarRows columns = (ColumnarRows) rows;
+			return (a, b, k) -> {
+				int column = keys.get(k).getColumn();
+				return columns.isPrimitive(column) ? columns.compare(a, b, column) : compare(columns.getValue(a, column), columns.getValue(b, column));
+			};
+		}
+		return (a, b, k) -> compare(getValue(rows.get(a), keys.get(k).getColumn()), getValue(rows.get(b), keys.get(k).getColumn()));
+	}
+
+	private static Comparator<Integer> comparator(List<SortKey> keys, Cells cells) {
+		return (a, b) -> {
+			for (int k = 0; k < keys.size(); k++) {
+				int result = cells.compare(a, b, k);
+				if (result != 0) {
+					return keys.get(k).getSortOrder() == SortOrder.ASCENDING ? result : -result;
+				}
+			}
+			return 0;
+		};
+	}
+
+	private static Object getValue(Object[] row, int column) {
+		return row != null && column < row.length ? row[column] : null;
+	}
+
+	// total order: nulls, numbers by value, then other values grouped by class
+	@SuppressWarnings("unchecked")
+	private static int compare(Object a, Object b) {
+		if (a == b) {
+			return 0;
+		} else if (a == null) {
+			return -1;
+		} else if (b == null) {
+			return 1;
+		}
+		boolean numberA = a instanceof Number;
+		boolean numberB = b instanceof Number;
+		if (numberA != numberB) {
+			return numberA ? -1 : 1;
+		}
+		if (a.getClass() != b.getClass()) {
+			if (numberA) {
+				int result = Double.compare(((Number) a).doubleValue(), ((Number) b).doubleValue());
+				if (result != 0) {
+					return result;
+				}
+			}
+			return a.getClass().getName().compareTo(b.getClass().getName());
+		}
+		if (a instanceof Comparable) {
+			return ((Comparable<Object>) a).compareTo(b);
+		}
+		return a.toString().compareTo(b.toString());
+	}
+}
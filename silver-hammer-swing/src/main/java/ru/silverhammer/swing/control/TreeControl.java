@@ -32,6 +32,8 @@ import java.util.List;
 import java.util.Map;
 
 import javax.swing.JTree;
+import javax.swing.event.TreeExpansionEvent;
+import javax.swing.event.TreeExpansionListener;
 import javax.swing.tree.DefaultMutableTreeNode;
 import javax.swing.tree.DefaultTreeModel;
 import javax.swing.tree.TreeNode;
@@ -40,9 +42,9 @@ import javax.swing.tree.TreeSelectionModel;
 
 import ru.silverhammer.control.ITree;
 import ru.silverhammer.control.ITreeControl;
+import ru.silverhammer.control.ITreeExpansionListener;
 import ru.silverhammer.control.Tree;
 
-// TODO: consider adding isLeaf
 // TODO: disable internal first key navigation
 public class TreeControl extends Control<Object, Tree, JTree> implements ITreeControl<Object, Tree, Object> {
 
@@ -50,6 +52,7 @@ public class TreeControl extends Control<Object, Tree, JTree> implements ITreeCo
 
 	private final Map<Object, DefaultMutableTreeNode> nodes = new HashMap<>();
 	private final DefaultMutableTreeNode root = new DefaultMutableTreeNode();
+	private final List<ITreeExpansionListener<Object>> expansionListeners = new ArrayList<>();
 
 	public TreeControl() {
 		super(true);
@@ -58,10 +61,22 @@ public class TreeControl extends Control<Object, Tree, JTree> implements ITreeCo
 		getComponent().setShowsRootHandles(true);
 		getComponent().setModel(new DefaultTreeModel(root));
 		getComponent().setRootVisible(false);
+		getComponent().addTreeExpansionListener(new TreeExpansionListener() {
+			@Override
+			public void treeExpanded(TreeExpansionEvent event) {
+				DefaultMutableTreeNode node = (DefaultMutableTreeNode) event.getPath().getLastPathComponent();
+				if (node != root) {
+					fireExpanded(node.getUserObject());
+				}
+			}
+
+			@Override
+			public void treeCollapsed(TreeExpansionEvent event) {}
+		});
 		getComponent().addKeyListener(new SearchAdapter() {
 			@Override
 			// TODO: consider searching starting from current node
-			protected void search(String search) {
+			protected void search(String search, boolean next) {
 				DefaultMutableTreeNode node = findMatchingObject(root, search);
 				if (node != null) {
 					TreeNode[] nodes = getModel().getPathToRoot(node);
@@ -78,7 +93,7 @@ public class TreeControl extends Control<Object, Tree, JTree> implements ITreeCo
 		int count = getModel().getChildCount(root);
 		for (int i = 0; i < count; i++) {
 			DefaultMutableTreeNode child = (DefaultMutableTreeNode) getModel().getChild(root, i);
-			Object data = child.getUserObject();
+			Object data = child instanceof PlaceholderNode ? null : child.getUserObject();
 			if (data != null && data.toString().contains(search)) {
 				return child;
 			}
@@ -86,6 +101,50 @@ public class TreeControl extends Control<Object, Tree, JTree> implements ITreeCo
 		return null;
 	}
 
+	private void fireExpanded(Object item) {
+		for (ITreeExpansionListener<Object> l : new ArrayList<>(expansionListeners)) {
+			l.expanded(item);
+		}
+	}
+
+	@Override
+	public void addExpansionListener(ITreeExpansionListener<Object> listener) {
+		if (listener != null) {
+			expansionListeners.add(listener);
+		}
+	}
+
+	@Override
+	public void removeExpansionListener(ITreeExpansionListener<Object> listener) {
+		expansionListeners.remove(listener);
+	}
+
+	private static boolean hasPlaceholder(DefaultMutableTreeNode node) {
+		return node.getChildCount() > 0 && node.getFirstChild() instanceof PlaceholderNode;
+	}
+
+	private void removePlaceholder(DefaultMutableTreeNode node) {
+		if (hasPlaceholder(node)) {
+			TreeNode placeholder = node.getFirstChild();
+			node.remove(0);
+			getModel().nodesWereRemoved(node, new int[] {0}, new Object[] {placeholder});
+		}
+	}
+
+	private void forget(DefaultMutableTreeNode node) {
+		if (!(node instanceof PlaceholderNode)) {
+			nodes.remove(node.getUserObject());
+		}
+		for (int i = 0; i < node.getChildCount(); i++) {
+			forget((DefaultMutableTreeNode) node.getChildAt(i));
+		}
+	}
+
+	private static Object getItem(TreePath path) {
+		DefaultMutableTreeNode node = (DefaultMutableTreeNode) path.getLastPathComponent();
+		return node instanceof PlaceholderNode ? null : node.getUserObject();
+	}
+
 	private DefaultTreeModel getModel() {
 		return (DefaultTreeModel) getComponent().getModel();
 	}
@@ -99,14 +158,17 @@ public class TreeControl extends Control<Object, Tree, JTree> implements ITreeCo
 		if (!isMultiSelection()) {
 			TreePath path = getComponent().getSelectionPath();
 			if (path != null) {
-				return ((DefaultMutableTreeNode) path.getLastPathComponent()).getUserObject();
+				return getItem(path);
 			}
 		} else {
 			List<Object> result = new ArrayList<>();
 			TreePath[] paths = getComponent().getSelectionPaths();
 			if (paths != null) {
 				for (TreePath path : paths) {
-					result.add(((DefaultMutableTreeNode) path.getLastPathComponent()).getUserObject());
+					Object item = getItem(path);
+					if (item != null) {
+						result.add(item);
+					}
 				}
 			}
 			return result;
@@ -127,8 +189,10 @@ public class TreeControl extends Control<Object, Tree, JTree> implements ITreeCo
 			} else if (value instanceof Collection) {
 				for (Object o : (Collection<?>) value) {
 					DefaultMutableTreeNode node = nodes.get(o);
-					TreeNode[] path = getModel().getPathToRoot(node);
-					getComponent().addSelectionPath(new TreePath(path));
+					if (node != null) {
+						TreeNode[] path = getModel().getPathToRoot(node);
+						getComponent().addSelectionPath(new TreePath(path));
+					}
 				}
 			}
 		}
@@ -158,7 +222,7 @@ public class TreeControl extends Control<Object, Tree, JTree> implements ITreeCo
 	public Object getSingleSelection() {
 		TreePath path = getComponent().getSelectionPath();
 		if (path != null) {
-			return ((DefaultMutableTreeNode) path.getLastPathComponent()).getUserObject();
+			return getItem(path);
 		}
 		return null;
 	}
@@ -168,7 +232,10 @@ public class TreeControl extends Control<Object, Tree, JTree> implements ITreeCo
 		TreePath[] paths = getComponent().getSelectionPaths();
 		if (paths != null) {
 			for (TreePath path : paths) {
-				result.add(((DefaultMutableTreeNode) path.getLastPathComponent()).getUserObject());
+				Object item = getItem(path);
+				if (item != null) {
+					result.add(item);
+				}
 			}
 		}
 		return result.toArray(new Object[0]);
@@ -202,10 +269,41 @@ public class TreeControl extends Control<Object, Tree, JTree> implements ITreeCo
 			public void add(Object parent, Object item) {
 				DefaultMutableTreeNode parentNode = getNode(parent);
 				if (parentNode != null) {
+					removePlaceholder(parentNode);
 					DefaultMutableTreeNode node = new DefaultMutableTreeNode(item);
 					parentNode.add(node);
 					nodes.put(item, node);
-					getModel().nodeStructureChanged(parentNode);
+					getModel().nodesWereInserted(parentNode, new int[] {parentNode.getChildCount() - 1});
+				}
+			}
+
+			@Override
+			public void addAll(Object parent, Collection<?> items) {
+				DefaultMutableTreeNode parentNode = getNode(parent);
+				if (parentNode != null && !items.isEmpty()) {
+					removePlaceholder(parentNode);
+					int[] indices = new int[items.size()];
+					int i = 0;
+					for (Object item : items) {
+						DefaultMutableTreeNode node = new DefaultMutableTreeNode(item);
+						indices[i++] = parentNode.getChildCount();
+						parentNode.add(node);
+						nodes.put(item, node);
+					}
+					getModel().nodesWereInserted(parentNode, indices);
+				}
+			}
+
+			@Override
+			public void setExpandable(Object item, boolean expandable) {
+				DefaultMutableTreeNode node = getNode(item);
+				if (node != null) {
+					if (!expandable) {
+						removePlaceholder(node);
+					} else if (node.getChildCount() == 0) {
+						node.add(new PlaceholderNode());
+						getModel().nodesWereInserted(node, new int[] {0});
+					}
 				}
 			}
 
@@ -214,9 +312,9 @@ public class TreeControl extends Control<Object, Tree, JTree> implements ITreeCo
 				DefaultMutableTreeNode parentNode = getNode(parent);
 				if (parentNode != null) {
 					DefaultMutableTreeNode node = (DefaultMutableTreeNode) parentNode.getChildAt(i);
-					parentNode.remove(node);
-					nodes.remove(node.getUserObject());
-					getModel().nodeStructureChanged(parentNode);
+					parentNode.remove(i);
+					forget(node);
+					getModel().nodesWereRemoved(parentNode, new int[] {i}, new Object[] {node});
 				}
 			}
 
@@ -233,7 +331,7 @@ public class TreeControl extends Control<Object, Tree, JTree> implements ITreeCo
 			public int getCount(Object parent) {
 				DefaultMutableTreeNode parentNode = getNode(parent);
 				if (parentNode != null) {
-					return parentNode.getChildCount();
+					return hasPlaceholder(parentNode) ? 0 : parentNode.getChildCount();
 				}
 				return -1;
 			}
@@ -272,4 +370,13 @@ public class TreeControl extends Control<Object, Tree, JTree> implements ITreeCo
 		}
 		setSelectionType(annotation.multiSelection());
 	}
+
+	private static class PlaceholderNode extends DefaultMutableTreeNode {
+
+		private static final long serialVersionUID = -4711381935129409113L;
+
+		PlaceholderNode() {
+			super("...", false);
+		}
+	}
 }
@@ -29,10 +29,8 @@ import java.awt.Container;
 import java.awt.Window;
 
 import ru.silverhammer.model.UiModel;
-import ru.silverhammer.control.IControl;
-import ru.silverhammer.control.IValueListener;
 
-public class GenerationDialog extends StandardDialog implements IValueListener {
+public class GenerationDialog extends StandardDialog {
 
 	private static final long serialVersionUID = 414732643695055693L;
 
@@ -41,19 +39,20 @@ public class GenerationDialog extends StandardDialog implements IValueListener {
 	public GenerationDialog(Window owner, Container container, UiModel model) {
 		super(owner);
 		this.model = model;
-		setCanAccept(model.isValid());
-		model.visitControlModels(ca -> ca.getControl().addValueListener(this));
+		setCanAccept(model.isValid() && !model.isValidationPending() && !model.isLoading());
+		model.addValidityListener(this::setCanAccept);
 		setContent(container);
 		setLocationRelativeTo(owner);
 	}
-	
-	@Override
-	public void changed(IControl<?, ?> control) {
-		setCanAccept(model.isValid());
-	}
-	
+
 	@Override
 	protected void accepted() {
 		model.commit();
 	}
+
+	@Override
+	public void dispose() {
+		model.dispose();
+		super.dispose();
+	}
 }
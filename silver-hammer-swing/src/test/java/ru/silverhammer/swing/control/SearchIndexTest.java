@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2020, Dmitriy Shchekotin
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package ru.silverhammer.swing.control;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.swing.SwingUtilities;
+
+import org.junit.Test;
+
+public class SearchIndexTest {
+
+	private final List<String> rows = new ArrayList<>();
+	private final SearchIndex index = new SearchIndex(rows::size, i -> new String[] {rows.get(i), null});
+
+	private void addRows(int count) {
+		for (int i = rows.size(), to = i + count; i < to; i++) {
+			rows.add(i % 7 == 0 ? "row " + i + " " + String.join("", Collections.nCopies(300, "x")) + " tail" + i : "row " + i);
+		}
+	}
+
+	private int[] scan(String search) {
+		List<Integer> result = new ArrayList<>();
+		for (int i = 0; i < rows.size(); i++) {
+			if (rows.get(i).contains(search)) {
+				result.add(i);
+			}
+		}
+		int[] array = new int[result.size()];
+		for (int i = 0; i < array.length; i++) {
+			array[i] = result.get(i);
+		}
+		return array;
+	}
+
+	// the index is built in chunks on the event dispatch thread
+	private static void drain() throws Exception {
+		for (int i = 0; i < 10; i++) {
+			SwingUtilities.invokeAndWait(() -> {});
+		}
+	}
+
+	private void assertMatches(String search) {
+		int[] expected = scan(search);
+		assertArrayEquals(search, expected, index.findAll(search));
+		assertEquals(search, expected.length == 0 ? -1 : expected[0], index.find(search, 0));
+		if (expected.length > 1) {
+			assertEquals(search, expected[1], index.find(search, expected[0] + 1));
+			assertEquals(search, expected[0], index.find(search, expected[expected.length - 1] + 1));
+		}
+	}
+
+	@Test
+	public void testSmallTableScanned() {
+		addRows(100);
+		assertMatches("row 1");
+		assertMatches("9");
+		assertMatches("missing");
+		assertEquals(-1, index.find("", 0));
+		assertEquals(0, index.findAll("").length);
+	}
+
+	@Test
+	public void testIndexedMatchesScan() throws Exception {
+		addRows(5000);
+		index.find("row", 0);
+		drain();
+		assertMatches("row 12");
+		assertMatches("w 4999");
+		assertMatches("99");
+		assertMatches("tail49");
+		assertMatches("xxx");
+		assertMatches("missing");
+	}
+
+	@Test
+	public void testAddedRowsFound() throws Exception {
+		addRows(3000);
+		index.find("row", 0);
+		drain();
+		addRows(10);
+		index.rowsAdded(3000, 3009);
+		assertMatches("row 300");
+		drain();
+		assertMatches("row 300");
+	}
+
+	@Test
+	public void testInvalidatedAfterChange() throws Exception {
+		addRows(3000);
+		index.find("row", 0);
+		drain();
+		rows.set(5, "changed");
+		index.invalidate();
+		assertMatches("changed");
+		drain();
+		assertMatches("changed");
+		assertMatches("row 5");
+	}
+}